@@ -0,0 +1,115 @@
+package puzzles.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import puzzles.chess.model.ChessConfig;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.KeyedConfiguration;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures hashCode and equals, the costs of every lookup in the solver's
+ * predecessor map. Equal pairs are a configuration and a copy rebuilt from its
+ * key, so equals has to compare the whole board; unequal pairs are neighbors
+ * in the sample. Run from the repository root so the data files are found.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashingBenchmark {
+    /** A sample and a rebuilt copy of each of its configurations */
+    public abstract static class Pairs {
+        List<Configuration> configs;
+        List<Configuration> copies;
+
+        void load(KeyedConfiguration start) {
+            configs = Samples.breadthFirst(start);
+            copies = new ArrayList<>(configs.size());
+            long[] key = new long[start.getKeyLength()];
+            for (Configuration config : configs) {
+                ((KeyedConfiguration) config).writeKey(key, 0);
+                copies.add(start.fromKey(key, 0));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ChessPairs extends Pairs {
+        @Setup
+        public void setup() throws IOException {
+            load(new ChessConfig("data/chess/chess-9.txt"));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class HoppersPairs extends Pairs {
+        @Setup
+        public void setup() throws IOException {
+            load(new HoppersConfig("data/hoppers/hoppers-8.txt"));
+        }
+    }
+
+    private static void hashCodes(Pairs pairs, Blackhole blackhole) {
+        for (Configuration config : pairs.configs) {
+            blackhole.consume(config.hashCode());
+        }
+    }
+
+    private static void equalPairs(Pairs pairs, Blackhole blackhole) {
+        for (int i = 0; i < pairs.configs.size(); i++) {
+            blackhole.consume(pairs.configs.get(i).equals(pairs.copies.get(i)));
+        }
+    }
+
+    private static void unequalPairs(Pairs pairs, Blackhole blackhole) {
+        for (int i = 1; i < pairs.configs.size(); i++) {
+            blackhole.consume(pairs.configs.get(i).equals(pairs.configs.get(i - 1)));
+        }
+    }
+
+    @Benchmark
+    public void chessHashCode(ChessPairs pairs, Blackhole blackhole) {
+        hashCodes(pairs, blackhole);
+    }
+
+    @Benchmark
+    public void chessEqual(ChessPairs pairs, Blackhole blackhole) {
+        equalPairs(pairs, blackhole);
+    }
+
+    @Benchmark
+    public void chessUnequal(ChessPairs pairs, Blackhole blackhole) {
+        unequalPairs(pairs, blackhole);
+    }
+
+    @Benchmark
+    public void hoppersHashCode(HoppersPairs pairs, Blackhole blackhole) {
+        hashCodes(pairs, blackhole);
+    }
+
+    @Benchmark
+    public void hoppersEqual(HoppersPairs pairs, Blackhole blackhole) {
+        equalPairs(pairs, blackhole);
+    }
+
+    @Benchmark
+    public void hoppersUnequal(HoppersPairs pairs, Blackhole blackhole) {
+        unequalPairs(pairs, blackhole);
+    }
+}
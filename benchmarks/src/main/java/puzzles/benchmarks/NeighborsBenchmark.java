@@ -0,0 +1,101 @@
+package puzzles.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import puzzles.chess.model.ChessConfig;
+import puzzles.clock.ClockConfig;
+import puzzles.common.solver.Configuration;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.strings.StringsConfig;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures getNeighbors() for each puzzle, over a sample of configurations from
+ * a breadth first search of one of its larger instances.
+ * Run from the repository root so the data files are found.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeighborsBenchmark {
+    @State(Scope.Benchmark)
+    public static class ChessSample {
+        List<Configuration> configs;
+
+        @Setup
+        public void setup() throws IOException {
+            configs = Samples.breadthFirst(new ChessConfig("data/chess/chess-9.txt"));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class HoppersSample {
+        List<Configuration> configs;
+
+        @Setup
+        public void setup() throws IOException {
+            configs = Samples.breadthFirst(new HoppersConfig("data/hoppers/hoppers-8.txt"));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ClockSample {
+        List<Configuration> configs;
+
+        @Setup
+        public void setup() {
+            configs = Samples.breadthFirst(new ClockConfig(1000, 42, 722));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class StringsSample {
+        List<Configuration> configs;
+
+        @Setup
+        public void setup() {
+            configs = Samples.breadthFirst(new StringsConfig("MARCH", "APRIL"));
+        }
+    }
+
+    // Gets the neighbors of every configuration in a sample
+    private static void neighbors(List<Configuration> configs, Blackhole blackhole) {
+        for (Configuration config : configs) {
+            blackhole.consume(config.getNeighbors());
+        }
+    }
+
+    @Benchmark
+    public void chess(ChessSample sample, Blackhole blackhole) {
+        neighbors(sample.configs, blackhole);
+    }
+
+    @Benchmark
+    public void hoppers(HoppersSample sample, Blackhole blackhole) {
+        neighbors(sample.configs, blackhole);
+    }
+
+    @Benchmark
+    public void clock(ClockSample sample, Blackhole blackhole) {
+        neighbors(sample.configs, blackhole);
+    }
+
+    @Benchmark
+    public void strings(StringsSample sample, Blackhole blackhole) {
+        neighbors(sample.configs, blackhole);
+    }
+}
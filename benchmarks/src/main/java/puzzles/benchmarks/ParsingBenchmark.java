@@ -0,0 +1,86 @@
+package puzzles.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.chess.model.ChessConfig;
+import puzzles.common.BoardFile;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading a puzzle file into its starting configuration, from the text
+ * format and from the binary one (see BoardFile).
+ * Run from the repository root so the data files are found.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmark {
+    @State(Scope.Benchmark)
+    public static class ChessFile {
+        @Param({"data/chess/chess-0.txt", "data/chess/chess-9.txt"})
+        public String chessFile;
+    }
+
+    @State(Scope.Benchmark)
+    public static class HoppersFile {
+        @Param({"data/hoppers/hoppers-0.txt", "data/hoppers/hoppers-8.txt"})
+        public String hoppersFile;
+    }
+
+    /** The largest boards converted to the binary format in a temporary directory */
+    @State(Scope.Benchmark)
+    public static class BinaryFiles {
+        public String chessFile;
+        public String hoppersFile;
+
+        @Setup
+        public void convert() throws IOException {
+            Path directory = Files.createTempDirectory("boards");
+            directory.toFile().deleteOnExit();
+            chessFile = convert("data/chess/chess-9.txt", directory.resolve("chess-9" + BoardFile.BINARY_EXTENSION));
+            hoppersFile = convert("data/hoppers/hoppers-8.txt", directory.resolve("hoppers-8" + BoardFile.BINARY_EXTENSION));
+        }
+
+        private static String convert(String textFile, Path binaryFile) throws IOException {
+            BoardFile.writeBinary(BoardFile.read(textFile), binaryFile);
+            binaryFile.toFile().deleteOnExit();
+            return binaryFile.toString();
+        }
+    }
+
+    @Benchmark
+    public ChessConfig chess(ChessFile input) throws IOException {
+        return new ChessConfig(input.chessFile);
+    }
+
+    @Benchmark
+    public HoppersConfig hoppers(HoppersFile input) throws IOException {
+        return new HoppersConfig(input.hoppersFile);
+    }
+
+    @Benchmark
+    public ChessConfig chessBinary(BinaryFiles input) throws IOException {
+        return new ChessConfig(input.chessFile);
+    }
+
+    @Benchmark
+    public HoppersConfig hoppersBinary(BinaryFiles input) throws IOException {
+        return new HoppersConfig(input.hoppersFile);
+    }
+}
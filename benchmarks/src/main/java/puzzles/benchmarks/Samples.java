@@ -0,0 +1,43 @@
+package puzzles.benchmarks;
+
+import puzzles.common.solver.Configuration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Picks the configurations the benchmarks work on, so each benchmark measures
+ * realistic positions from the middle of a search rather than only the start.
+ */
+final class Samples {
+    /** The most configurations in a sample */
+    static final int SAMPLE_SIZE = 1000;
+
+    private Samples() {
+    }
+
+    /**
+     * Collects the first configurations a breadth first search reaches.
+     * @param start where the search starts
+     * @return up to SAMPLE_SIZE distinct configurations, start first
+     */
+    static List<Configuration> breadthFirst(Configuration start) {
+        List<Configuration> sample = new ArrayList<>();
+        HashSet<Configuration> seen = new HashSet<>();
+        ArrayDeque<Configuration> queue = new ArrayDeque<>();
+        seen.add(start);
+        queue.add(start);
+        while (!queue.isEmpty() && sample.size() < SAMPLE_SIZE) {
+            Configuration curr = queue.poll();
+            sample.add(curr);
+            curr.forEachNeighbor(neighbor -> {
+                if (seen.add(neighbor)) {
+                    queue.add(neighbor);
+                }
+            });
+        }
+        return sample;
+    }
+}
@@ -0,0 +1,87 @@
+package puzzles.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.chess.model.ChessConfig;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.HeuristicSolver;
+import puzzles.common.solver.Solver;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the breadth first solver end to end on every puzzle in data.
+ * Uses ModelBFSSolver, the same search as BFSSolver without printing the counts
+ * on every call. The A* runs, there to compare against it, do print them.
+ * Run from the repository root so the data files are found.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    @State(Scope.Benchmark)
+    public static class ChessPuzzle {
+        @Param({"data/chess/chess-0.txt", "data/chess/chess-1.txt", "data/chess/chess-2.txt",
+                "data/chess/chess-3.txt", "data/chess/chess-4.txt", "data/chess/chess-5.txt",
+                "data/chess/chess-6.txt", "data/chess/chess-7.txt", "data/chess/chess-8.txt",
+                "data/chess/chess-9.txt"})
+        public String chessFile;
+
+        Configuration start;
+
+        @Setup
+        public void setup() throws IOException {
+            start = new ChessConfig(chessFile);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class HoppersPuzzle {
+        @Param({"data/hoppers/hoppers-0.txt", "data/hoppers/hoppers-1.txt", "data/hoppers/hoppers-2.txt",
+                "data/hoppers/hoppers-3.txt", "data/hoppers/hoppers-4.txt", "data/hoppers/hoppers-5.txt",
+                "data/hoppers/hoppers-6.txt", "data/hoppers/hoppers-7.txt", "data/hoppers/hoppers-8.txt",
+                "data/hoppers/hoppers-9.txt"})
+        public String hoppersFile;
+
+        Configuration start;
+
+        @Setup
+        public void setup() throws IOException {
+            start = new HoppersConfig(hoppersFile);
+        }
+    }
+
+    @Benchmark
+    public LinkedList<Configuration> chess(ChessPuzzle puzzle) {
+        return Solver.ModelBFSSolver(puzzle.start);
+    }
+
+    @Benchmark
+    public LinkedList<Configuration> hoppers(HoppersPuzzle puzzle) {
+        return Solver.ModelBFSSolver(puzzle.start);
+    }
+
+    @Benchmark
+    public LinkedList<Configuration> chessAStar(ChessPuzzle puzzle) {
+        return HeuristicSolver.AStarSolver(puzzle.start, ChessConfig.HEURISTIC);
+    }
+
+    @Benchmark
+    public LinkedList<Configuration> hoppersAStar(HoppersPuzzle puzzle) {
+        return HeuristicSolver.AStarSolver(puzzle.start, HoppersConfig.HEURISTIC);
+    }
+}
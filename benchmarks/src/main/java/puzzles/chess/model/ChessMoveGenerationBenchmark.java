@@ -0,0 +1,83 @@
+package puzzles.chess.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import puzzles.common.solver.Configuration;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares ChessConfig's bitboard move generation with walking the board.
+ * Each run expands the same sample of positions, taken breadth first from the
+ * puzzle's start. It lives in the model's package to reach the constructor that
+ * picks the move generator. Run from the repository root so the data files are found.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessMoveGenerationBenchmark {
+    /** The most positions to expand per call */
+    private static final int SAMPLE_SIZE = 1000;
+
+    @Param({"data/chess/chess-4.txt", "data/chess/chess-6.txt", "data/chess/chess-9.txt"})
+    public String chessFile;
+
+    /** true for bitboards, false for the board walk */
+    @Param({"true", "false"})
+    public boolean bitboards;
+
+    private List<ChessConfig> sample;
+
+    @Setup
+    public void setup() throws IOException {
+        ChessConfig start = new ChessConfig(chessFile, bitboards);
+        sample = new ArrayList<>();
+        HashSet<Configuration> seen = new HashSet<>();
+        ArrayDeque<Configuration> queue = new ArrayDeque<>();
+        seen.add(start);
+        queue.add(start);
+        while (!queue.isEmpty() && sample.size() < SAMPLE_SIZE) {
+            Configuration curr = queue.poll();
+            sample.add((ChessConfig) curr);
+            curr.forEachNeighbor(neighbor -> {
+                if (seen.add(neighbor)) {
+                    queue.add(neighbor);
+                }
+            });
+        }
+    }
+
+    /** Every capture of every sampled position */
+    @Benchmark
+    public void forEachNeighbor(Blackhole blackhole) {
+        for (ChessConfig config : sample) {
+            config.forEachNeighbor(blackhole::consume);
+        }
+    }
+
+    /** Only whether each sampled position has a capture, which mostly stops at the first piece */
+    @Benchmark
+    public void anyValidCaptures(Blackhole blackhole) {
+        for (ChessConfig config : sample) {
+            blackhole.consume(config.anyValidCaptures());
+        }
+    }
+}
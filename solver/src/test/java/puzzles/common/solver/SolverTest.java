@@ -0,0 +1,57 @@
+package puzzles.common.solver;
+
+import org.junit.jupiter.api.Test;
+import puzzles.chess.model.ChessConfig;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.io.IOException;
+import java.util.LinkedList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the solvers on boards whose answers are known
+ */
+class SolverTest {
+
+    // A rook followed by bishops in one row, solved by the rook taking them left to right
+    private static ChessConfig line(int pieces) {
+        char[][] cells = new char[1][pieces];
+        cells[0][0] = 'R';
+        for (int j = 1; j < pieces; j++) {
+            cells[0][j] = 'B';
+        }
+        return new ChessConfig(cells);
+    }
+
+    @Test
+    void keyedSearchSolvesBoardsWhoseKeysShrink() {
+        //21 pieces fit in a long, so these keys lose a long part way through the search
+        for (int pieces : new int[]{22, 23, 30}) {
+            LinkedList<Configuration> path = Solver.BFSSolver(line(pieces));
+            assertNotNull(path, pieces + " pieces");
+            assertEquals(pieces, path.size(), pieces + " pieces");
+            assertTrue(path.getLast().isSolution(), pieces + " pieces");
+        }
+    }
+
+    @Test
+    void aStarFindsShortestPaths() throws IOException {
+        //The data files are found from the solver module's directory
+        for (int i = 0; i < 10; i++) {
+            ChessConfig chess = new ChessConfig("../data/chess/chess-" + i + ".txt");
+            assertEquals(size(Solver.BFSSolver(chess)),
+                    size(HeuristicSolver.AStarSolver(chess, ChessConfig.HEURISTIC)), "chess-" + i);
+            HoppersConfig hoppers = new HoppersConfig("../data/hoppers/hoppers-" + i + ".txt");
+            assertEquals(size(Solver.BFSSolver(hoppers)),
+                    size(HeuristicSolver.AStarSolver(hoppers, HoppersConfig.HEURISTIC)), "hoppers-" + i);
+        }
+    }
+
+    // The length of a path, 0 if there is none
+    private static int size(LinkedList<Configuration> path) {
+        return path == null ? 0 : path.size();
+    }
+}
@@ -0,0 +1,236 @@
+package puzzles.batch;
+
+import puzzles.chess.model.ChessConfig;
+import puzzles.common.BoardFile;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.SearchOutcome;
+import puzzles.common.solver.Solver;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Solves a whole set of chess and hoppers puzzles on a pool of threads and writes
+ * one CSV record per puzzle, in the order the puzzles were given:
+ * <pre>file,puzzle,status,solvable,steps,configs,unique,millis</pre>
+ * Puzzles can be given as files, directories, whose .txt files and binary .pzb files
+ * (see BoardFile) are solved, or glob patterns like "data/*&#47;*.txt". Each puzzle
+ * is stopped once it finds more unique configurations than the state limit, which
+ * bounds the memory it holds, or runs past the time limit. A puzzle that still runs
+ * out of memory is recorded as such and the rest carry on.
+ */
+public class Batch {
+    private static final String USAGE =
+            "Usage: java Batch [-threads n] [-timeout seconds] [-maxstates n] [-out file] path...";
+    /** The header of the summary */
+    private static final String HEADER = "file,puzzle,status,solvable,steps,configs,unique,millis";
+    /** The longest one puzzle is searched when no -timeout is given */
+    private static final long DEFAULT_TIMEOUT_SECONDS = 60;
+    /** The most unique configurations one puzzle keeps when no -maxstates is given */
+    private static final long DEFAULT_MAX_STATES = 20_000_000;
+    /** The characters that make an argument a glob pattern instead of a path */
+    private static final String GLOB_CHARS = "*?[{";
+
+    /** The puzzles a batch can solve */
+    enum Puzzle {
+        CHESS, HOPPERS;
+
+        // Builds the starting configuration from the board read from the file
+        Configuration load(char[][] cells) {
+            return this == CHESS ? new ChessConfig(cells) : new HoppersConfig(cells);
+        }
+
+        // Only hoppers boards have water or green frogs. Red frogs are also rooks, so a
+        // board of nothing but them is taken as chess.
+        static Puzzle of(char[][] cells) {
+            for (char[] row : cells) {
+                for (char cell : row) {
+                    if (cell == '*' || cell == 'G') {
+                        return HOPPERS;
+                    }
+                }
+            }
+            return CHESS;
+        }
+    }
+
+    /** How each puzzle went, a line of the summary */
+    private record Summary(Path file, Puzzle puzzle, String status, SearchOutcome outcome, long millis) {
+        @Override
+        public String toString() {
+            String solvable = outcome == null ? "" : switch (outcome.status()) {
+                case SOLVED -> "true";
+                case NO_SOLUTION -> "false";
+                default -> "";
+            };
+            String steps = outcome == null || outcome.path() == null ? "" : String.valueOf(outcome.path().size() - 1);
+            return String.join(",", csv(file.toString()), puzzle == null ? "" : puzzle.name().toLowerCase(),
+                    status, solvable, steps,
+                    outcome == null ? "" : String.valueOf(outcome.configCount()),
+                    outcome == null ? "" : String.valueOf(outcome.unique()),
+                    String.valueOf(millis));
+        }
+
+        // Quotes a field if it would break the line up
+        private static String csv(String field) {
+            if (field.indexOf(',') < 0 && field.indexOf('"') < 0) {
+                return field;
+            }
+            return '"' + field.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private final long maxStates;
+    private final long timeLimitNanos;
+
+    Batch(long maxStates, long timeLimitNanos) {
+        this.maxStates = maxStates;
+        this.timeLimitNanos = timeLimitNanos;
+    }
+
+    // Loads and solves one puzzle, never throwing so one bad file cannot stop the batch
+    private Summary solve(Path file) {
+        long start = System.nanoTime();
+        Puzzle puzzle = null;
+        try {
+            //Parsed once, both to tell the puzzle and to build it
+            char[][] cells = BoardFile.read(file.toString());
+            puzzle = Puzzle.of(cells);
+            SearchOutcome outcome = Solver.LimitedBFSSolver(puzzle.load(cells), maxStates, timeLimitNanos);
+            return new Summary(file, puzzle, outcome.status().name(), outcome, millisSince(start));
+        }
+        catch (OutOfMemoryError e) {
+            // The search's tables are garbage once it has unwound, so the other puzzles can go on
+            return new Summary(file, puzzle, "OUT_OF_MEMORY", null, millisSince(start));
+        }
+        catch (IOException | RuntimeException e) {
+            return new Summary(file, puzzle, "ERROR", null, millisSince(start));
+        }
+    }
+
+    private static long millisSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Solves the files on a pool of threads, writing each summary as soon as it and
+     * every file before it are done
+     * @param files the puzzles to solve
+     * @param threads the size of the pool
+     * @param out where the summary goes
+     */
+    void run(List<Path> files, int threads, PrintWriter out) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Summary>> results = new ArrayList<>();
+            for (Path file : files) {
+                results.add(pool.submit(() -> solve(file)));
+            }
+            out.println(HEADER);
+            for (Future<Summary> result : results) {
+                try {
+                    out.println(result.get());
+                }
+                catch (ExecutionException e) {
+                    // solve catches everything it can, so this is an error thrown past it
+                    throw new IllegalStateException(e.getCause());
+                }
+                out.flush();
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Turns an argument into the puzzle files it names
+     * @param arg a file, a directory or a glob pattern
+     * @return the files, sorted by name for directories and patterns
+     */
+    static List<Path> expand(String arg) throws IOException {
+        int glob = -1;
+        for (int i = 0; i < arg.length() && glob < 0; i++) {
+            if (GLOB_CHARS.indexOf(arg.charAt(i)) >= 0) {
+                glob = i;
+            }
+        }
+        if (glob >= 0) {
+            // Walk from the directory before the first glob character
+            int slash = Math.max(arg.lastIndexOf('/', glob), arg.lastIndexOf('\\', glob));
+            Path root = Paths.get(slash < 0 ? "." : arg.substring(0, slash + 1));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + arg);
+            try (Stream<Path> paths = Files.walk(root)) {
+                return paths.map(path -> slash < 0 ? root.relativize(path) : path)
+                        .filter(path -> matcher.matches(path) && Files.isRegularFile(path))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+        Path path = Paths.get(arg);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> paths = Files.list(path)) {
+                return paths.filter(file -> (file.toString().endsWith(".txt")
+                                || file.toString().endsWith(BoardFile.BINARY_EXTENSION)) && Files.isRegularFile(file))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+        return List.of(path);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+        long maxStates = DEFAULT_MAX_STATES;
+        String outFile = null;
+        List<Path> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-threads" -> threads = Integer.parseInt(args[++i]);
+                    case "-timeout" -> timeoutSeconds = Long.parseLong(args[++i]);
+                    case "-maxstates" -> maxStates = Long.parseLong(args[++i]);
+                    case "-out" -> outFile = args[++i];
+                    default -> {
+                        if (args[i].startsWith("-")) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        files.addAll(expand(args[i]));
+                    }
+                }
+            }
+        }
+        catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            files.clear();
+        }
+        if (files.isEmpty() || threads < 1) {
+            System.out.println(USAGE);
+            return;
+        }
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                outFile == null ? new OutputStreamWriter(System.out) : new FileWriter(outFile)));
+        new Batch(maxStates, TimeUnit.SECONDS.toNanos(timeoutSeconds)).run(files, threads, out);
+        if (outFile != null) {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package puzzles.batch;
+
+import puzzles.common.BoardFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts puzzle files between BoardFile's text and binary formats. Text boards are
+ * written as binary ones with the same name and the .pzb extension, or with -text
+ * binary boards are written back as .txt files; files already in the format asked for
+ * are left alone. Puzzles are given the same way as to Batch, and the converted files
+ * go next to them unless -out names a directory.
+ */
+public class Convert {
+    private static final String USAGE = "Usage: java Convert [-text] [-out directory] path...";
+    private static final String TEXT_EXTENSION = ".txt";
+
+    /**
+     * Converts one board
+     * @param file the board to convert
+     * @param toText whether to write the text format rather than the binary one
+     * @param directory where the converted board goes, null for next to the board
+     * @return the file written
+     * @throws IOException if a board cannot be read or written
+     */
+    static Path convert(Path file, boolean toText, Path directory) throws IOException {
+        char[][] cells = BoardFile.read(file.toString());
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        name = (dot < 0 ? name : name.substring(0, dot)) + (toText ? TEXT_EXTENSION : BoardFile.BINARY_EXTENSION);
+        Path out = directory == null ? file.resolveSibling(name) : directory.resolve(name);
+        if (toText) {
+            BoardFile.writeText(cells, out);
+        }
+        else {
+            BoardFile.writeBinary(cells, out);
+        }
+        return out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean toText = false;
+        Path directory = null;
+        List<Path> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-text" -> toText = true;
+                    case "-out" -> directory = Path.of(args[++i]);
+                    default -> {
+                        if (args[i].startsWith("-")) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        files.addAll(Batch.expand(args[i]));
+                    }
+                }
+            }
+        }
+        catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            files.clear();
+        }
+        if (files.isEmpty()) {
+            System.out.println(USAGE);
+            return;
+        }
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        String target = toText ? TEXT_EXTENSION : BoardFile.BINARY_EXTENSION;
+        int converted = 0;
+        long before = 0, after = 0;
+        for (Path file : files) {
+            if (file.toString().endsWith(target)) {
+                continue;
+            }
+            try {
+                Path out = convert(file, toText, directory);
+                converted++;
+                before += Files.size(file);
+                after += Files.size(out);
+            }
+            catch (IOException | IllegalArgumentException e) {
+                System.out.println(file + ": " + e.getMessage());
+            }
+        }
+        System.out.printf("Converted %d files, %d bytes to %d bytes%n", converted, before, after);
+    }
+}
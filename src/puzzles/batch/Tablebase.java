@@ -0,0 +1,40 @@
+package puzzles.batch;
+
+import puzzles.chess.model.ChessTablebase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the chess endgame tables (see ChessTablebase) for board sizes given as
+ * rows x columns, like 8x8, into a directory. Chess boards of those sizes use them
+ * when run with -Dpuzzles.chess.tablebase set to the same directory.
+ */
+public class Tablebase {
+    private static final String USAGE = "Usage: java Tablebase directory rowsxcols...";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println(USAGE);
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        for (int i = 1; i < args.length; i++) {
+            String[] size = args[i].toLowerCase().split("x");
+            try {
+                if (size.length != 2) {
+                    throw new IllegalArgumentException("Sizes are given as rowsxcols");
+                }
+                long start = System.nanoTime();
+                Path file = ChessTablebase.generate(Integer.parseInt(size[0]), Integer.parseInt(size[1]), directory);
+                System.out.printf("%s: %d bytes in %d ms%n", file, Files.size(file),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            catch (IllegalArgumentException e) {
+                System.out.println(args[i] + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package puzzles.chess.gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -11,6 +12,8 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import puzzles.common.BoardUpdate;
+import puzzles.common.Coordinates;
 import puzzles.common.Observer;
 import puzzles.chess.model.ChessModel;
 
@@ -19,7 +22,7 @@ import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.HashMap;
 
-public class ChessGUI extends Application implements Observer<ChessModel, String> {
+public class ChessGUI extends Application implements Observer<ChessModel, BoardUpdate> {
     private ChessModel model;
 
     /** The size of all icons, in square dimension */
@@ -32,7 +35,11 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
     private Button loadButton;
     private Button hintButton;
     private Button resetButton;
+    private Button solveButton;
+    private Button cancelButton;
     private Text statusText;
+    /** The image on each square's button, kept so updates only change the squares that differ*/
+    private ImageView[][] squareViews;
     private FileChooser fileChooser;
 
 
@@ -65,7 +72,8 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
     public void init() throws IOException {
         // get the file name from the command line
         String filename = getParameters().getRaw().get(0);
-        this.model = new ChessModel(filename);
+        //Hints and solves search in the background and report back on the JavaFX thread
+        this.model = new ChessModel(filename, Platform::runLater);
         this.model.addObserver(this);
 
         //Make the hashmap from characters to images
@@ -97,7 +105,7 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
         }
         catch (Exception e)
         {
-            update(model, "Invalid File Choosen");
+            statusText.setText("Invalid File Choosen");
         }
     }
 
@@ -110,13 +118,19 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
         statusText = new Text("stat");
         statusText.setStyle("-fx-font-size: " + FONT_SIZE);
 
-        //The three buttons at the bottom just call the model's respective methods
+        //The buttons at the bottom just call the model's respective methods
         loadButton = new Button("Load");
         loadButton.setOnAction(event -> loadFromFileChooser());
         resetButton = new Button("Reset");
         resetButton.setOnAction(event -> model.reset());
         hintButton = new Button("Hint");
-        hintButton.setOnAction(event -> model.hint());
+        hintButton.setOnAction(event -> model.requestHint());
+        solveButton = new Button("Solve");
+        solveButton.setOnAction(event -> model.requestSolve());
+        //Cancel is only enabled while a hint or solve is searching
+        cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(event -> model.cancel());
+        cancelButton.setDisable(true);
 
         //Set everything in the border pane
         borderPane = new BorderPane();
@@ -124,11 +138,13 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
         BorderPane.setAlignment(statusText, Pos.CENTER);
         borderPane.setTop(statusText);
 
-        //bottom with a flowpane with the three buttons
+        //bottom with a gridpane with the buttons
         GridPane bot = new GridPane();
         bot.add(loadButton, 0, 0);
         bot.add(resetButton, 1, 0);
         bot.add(hintButton, 2, 0);
+        bot.add(solveButton, 3, 0);
+        bot.add(cancelButton, 4, 0);
         bot.setAlignment(Pos.CENTER);
         borderPane.setBottom(bot);
 
@@ -142,11 +158,33 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
     }
 
     @Override
-    public void update(ChessModel chessModel, String msg) {
+    public void update(ChessModel chessModel, BoardUpdate update) {
         //Update the status
-        statusText.setText(msg);
-        //Create and update the grid for the board of buttons
+        statusText.setText(update.message());
+        cancelButton.setDisable(!chessModel.isSearching());
+        //The buttons are only made when a board is loaded, otherwise just the changed squares are redrawn
+        if(update.newBoard() || squareViews == null)
+        {
+            buildBoard();
+            return;
+        }
+        for(Coordinates square : update.changed()) {
+            squareViews[square.row()][square.col()].setImage(pieceImage(model.getVal(square.row(), square.col())));
+        }
+    }
+
+    /** Gets the image for a piece, null for an empty square*/
+    private Image pieceImage(char piece)
+    {
+        // . is empty
+        return piece == '.' ? null : characterImageHashMap.get(piece);
+    }
+
+    /** Creates the grid of buttons for the loaded board*/
+    private void buildBoard()
+    {
         GridPane gridPane = new GridPane();
+        squareViews = new ImageView[model.getRows()][model.getCols()];
         for (int i = 0; i < model.getRows(); i++) {
             for (int j = 0; j < model.getCols(); j++) {
                 Button temp = new Button();
@@ -159,12 +197,8 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
                     temp.setBackground(DARK);
                 }
                 //Assigning the button the corresponding image based on the character
-                char piece = model.getVal(i, j);
-                if(piece != '.') // . is empty
-                {
-                    //Using hashmap to get the image
-                    temp.setGraphic(new ImageView(characterImageHashMap.get(piece)));
-                }
+                squareViews[i][j] = new ImageView(pieceImage(model.getVal(i, j)));
+                temp.setGraphic(squareViews[i][j]);
                 temp.setMinSize(ICON_SIZE, ICON_SIZE);
                 temp.setMaxSize(ICON_SIZE, ICON_SIZE);
                 int finalI = i;
@@ -0,0 +1,239 @@
+package puzzles.chess.model;
+
+import puzzles.common.BoardSymmetries;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The fixed facts about a chess solitaire board that every config on it shares:
+ * its size, its symmetries, the random keys used for Zobrist hashing, and on boards of up to
+ * MAX_BITBOARD_SQUARES squares the attack tables for bitboard move generation
+ * and the squares each piece could ever get to, and the board size's ChessTablebase if there is one.
+ * One is built per loaded file.
+ * Bitboards are two longs, squares 0-63 in the first and 64-127 in the second,
+ * with each square numbered row * cols + col.
+ */
+final class ChessBoard {
+    /** The number of piece types, and so of piece codes*/
+    static final int PIECE_TYPES = 6;
+    /** The most squares two longs can hold, enough for an 11x11 board*/
+    static final int MAX_BITBOARD_SQUARES = 128;
+    /** The number of sliding directions, the bishop's four then the rook's four*/
+    static final int DIRECTIONS = 8;
+    /** The first of the bishop's and of the rook's directions*/
+    static final int BISHOP_DIRECTIONS = 0;
+    static final int ROOK_DIRECTIONS = 4;
+    /** How many of the symmetries keep pawns capturing upwards, the identity and the left-right mirror*/
+    static final int PAWN_SYMMETRIES = 2;
+    /** Fixed so the same board always hashes the same way*/
+    private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+
+    /** number of rows*/
+    final int rows;
+    /** number of columns*/
+    final int cols;
+    /** Whether configs on this board use bitboards, otherwise they walk the board array*/
+    final boolean bitboards;
+    /**
+     * The reflections and rotations of the board (see BoardSymmetries), which every
+     * piece but the pawn captures the same way under. Entry [symmetry][square] is the
+     * square whose piece ends up on square.
+     */
+    final int[][] symmetries;
+    /** A random key per piece code per square, indexed [square * PIECE_TYPES + code]*/
+    private final long[] zobrist;
+
+    //The rest are only built with bitboards
+    /** The squares each jumping piece attacks from each square, in the order its moves are listed*/
+    final int[][] pawnTargets;
+    final int[][] knightTargets;
+    final int[][] kingTargets;
+    /** The same squares as bitboards, indexed [square * 2 + word]*/
+    final long[] pawnAttacks;
+    final long[] knightAttacks;
+    final long[] kingAttacks;
+    /** The squares along each direction from each square, indexed [(square * DIRECTIONS + direction) * 2 + word]*/
+    private final long[] rays;
+    /** Whether the squares along each direction have increasing numbers*/
+    private final boolean[] increasing;
+    /**
+     * Every square a piece could get to from each square on an empty board, by any number
+     * of its moves, indexed [(code * squares + square) * 2 + word] with codes in
+     * ChessConfig's order: pawn, bishop, knight, rook, queen, king
+     */
+    final long[] reach;
+    /** Whether each board of a few pieces can be solved, null unless ChessTablebase's property is set and the table is built*/
+    final ChessTablebase tablebase;
+
+    /**
+     * Sets up a board
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param bitboards whether to use bitboards if the board is small enough
+     */
+    ChessBoard(int rows, int cols, boolean bitboards)
+    {
+        this.rows = rows;
+        this.cols = cols;
+        this.bitboards = bitboards && rows * cols <= MAX_BITBOARD_SQUARES;
+        this.symmetries = BoardSymmetries.squareMaps(rows, cols);
+        SplittableRandom random = new SplittableRandom(ZOBRIST_SEED);
+        zobrist = new long[rows * cols * PIECE_TYPES];
+        for (int i = 0; i < zobrist.length; i++) {
+            zobrist[i] = random.nextLong();
+        }
+        if(!this.bitboards) {
+            pawnTargets = knightTargets = kingTargets = null;
+            pawnAttacks = knightAttacks = kingAttacks = rays = reach = null;
+            increasing = null;
+            tablebase = null;
+            return;
+        }
+
+        //A pawn only captures up, to the left then the right
+        pawnTargets = jumpTargets(new int[] {-1, -1}, new int[] {-1, 1});
+        knightTargets = jumpTargets(ChessConfig.KNIGHT_ROWS, ChessConfig.KNIGHT_COLS);
+        kingTargets = jumpTargets(ChessConfig.KING_ROWS, ChessConfig.KING_COLS);
+        pawnAttacks = toBitboards(pawnTargets);
+        knightAttacks = toBitboards(knightTargets);
+        kingAttacks = toBitboards(kingTargets);
+
+        int[] directionRows = new int[DIRECTIONS];
+        int[] directionCols = new int[DIRECTIONS];
+        for (int d = 0; d < 4; d++) {
+            directionRows[BISHOP_DIRECTIONS + d] = ChessConfig.BISHOP_ROWS[d];
+            directionCols[BISHOP_DIRECTIONS + d] = ChessConfig.BISHOP_COLS[d];
+            directionRows[ROOK_DIRECTIONS + d] = ChessConfig.ROOK_ROWS[d];
+            directionCols[ROOK_DIRECTIONS + d] = ChessConfig.ROOK_COLS[d];
+        }
+        increasing = new boolean[DIRECTIONS];
+        for (int d = 0; d < DIRECTIONS; d++) {
+            increasing[d] = directionRows[d] * cols + directionCols[d] > 0;
+        }
+        rays = new long[rows * cols * DIRECTIONS * 2];
+        for (int square = 0; square < rows * cols; square++) {
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int row = square / cols + directionRows[d];
+                int col = square % cols + directionCols[d];
+                while(row >= 0 && row < rows && col >= 0 && col < cols) {
+                    setBit(rays, (square * DIRECTIONS + d) * 2, row * cols + col);
+                    row += directionRows[d];
+                    col += directionCols[d];
+                }
+            }
+        }
+
+        //Sliding pieces get anywhere their single steps do
+        int[][][] steps = {pawnTargets, jumpTargets(ChessConfig.BISHOP_ROWS, ChessConfig.BISHOP_COLS),
+                knightTargets, jumpTargets(ChessConfig.ROOK_ROWS, ChessConfig.ROOK_COLS), kingTargets, kingTargets};
+        reach = new long[PIECE_TYPES * rows * cols * 2];
+        for (int code = 0; code < PIECE_TYPES; code++) {
+            for (int square = 0; square < rows * cols; square++) {
+                fillReach(steps[code], square, (code * rows * cols + square) * 2);
+            }
+        }
+        tablebase = ChessTablebase.forBoard(this);
+    }
+
+    // Marks every square the steps lead to from a square, the square itself included
+    private void fillReach(int[][] steps, int square, int index)
+    {
+        int[] pending = new int[rows * cols];
+        int count = 0;
+        pending[count++] = square;
+        setBit(reach, index, square);
+        while(count > 0) {
+            for (int target : steps[pending[--count]]) {
+                if((reach[index + target / 64] & (1L << (target % 64))) == 0) {
+                    setBit(reach, index, target);
+                    pending[count++] = target;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the Zobrist key of a piece on a square. A board's hash is the xor of the
+     * keys of all its pieces, so moving a piece only takes a few xors to rehash.
+     * @param square the square, row * cols + col
+     * @param code the piece's code
+     * @return the key
+     */
+    long zobrist(int square, int code)
+    {
+        return zobrist[square * PIECE_TYPES + code];
+    }
+
+    /**
+     * Finds the first piece a sliding piece would hit going one way
+     * @param square the square the piece is on
+     * @param direction which way it slides, one of the DIRECTIONS
+     * @param occupiedLo the occupied squares 0-63
+     * @param occupiedHi the occupied squares 64-127
+     * @return the square of the nearest piece, -1 if it reaches the edge first
+     */
+    int firstBlocker(int square, int direction, long occupiedLo, long occupiedHi)
+    {
+        int index = (square * DIRECTIONS + direction) * 2;
+        long lo = rays[index] & occupiedLo;
+        long hi = rays[index + 1] & occupiedHi;
+        //Nearest is the lowest square going up the numbering and the highest going down
+        if(increasing[direction]) {
+            if(lo != 0)
+                return Long.numberOfTrailingZeros(lo);
+            return hi != 0 ? 64 + Long.numberOfTrailingZeros(hi) : -1;
+        }
+        if(hi != 0)
+            return 127 - Long.numberOfLeadingZeros(hi);
+        return lo != 0 ? 63 - Long.numberOfLeadingZeros(lo) : -1;
+    }
+
+    /**
+     * Gets how many steps apart two squares on the same line are
+     * @param from one square
+     * @param to the other square
+     * @return the number of king steps between them
+     */
+    int distance(int from, int to)
+    {
+        return Math.max(Math.abs(from / cols - to / cols), Math.abs(from % cols - to % cols));
+    }
+
+    // Lists the squares on the board a jump reaches from each square, keeping the order of the steps
+    private int[][] jumpTargets(int[] rowSteps, int[] colSteps)
+    {
+        int[][] targets = new int[rows * cols][];
+        int[] buffer = new int[rowSteps.length];
+        for (int square = 0; square < rows * cols; square++) {
+            int count = 0;
+            for (int i = 0; i < rowSteps.length; i++) {
+                int row = square / cols + rowSteps[i];
+                int col = square % cols + colSteps[i];
+                if(row >= 0 && row < rows && col >= 0 && col < cols) {
+                    buffer[count++] = row * cols + col;
+                }
+            }
+            targets[square] = Arrays.copyOf(buffer, count);
+        }
+        return targets;
+    }
+
+    // Turns each square's target list into a bitboard
+    private static long[] toBitboards(int[][] targets)
+    {
+        long[] bitboards = new long[targets.length * 2];
+        for (int square = 0; square < targets.length; square++) {
+            for (int target : targets[square]) {
+                setBit(bitboards, square * 2, target);
+            }
+        }
+        return bitboards;
+    }
+
+    // Sets a square's bit in the bitboard starting at index
+    private static void setBit(long[] bitboards, int index, int square)
+    {
+        bitboards[index + square / 64] |= 1L << (square % 64);
+    }
+}
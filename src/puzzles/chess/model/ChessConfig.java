@@ -2,16 +2,20 @@ package puzzles.chess.model;
 
 import puzzles.chess.solver.Chess;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.FixedDepthConfiguration;
+import puzzles.common.solver.Heuristic;
+import puzzles.common.solver.KeyedConfiguration;
+import puzzles.common.solver.ReversibleConfiguration;
+import puzzles.common.BoardFile;
 import puzzles.common.Coordinates;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
+import java.util.function.Consumer;
 
 // TODO: implement your ChessConfig for the common solver
 
-public class ChessConfig implements Configuration {
+public class ChessConfig implements ReversibleConfiguration, FixedDepthConfiguration {
     /** a cell without a piece*/
     private final static char EMPTY = '.';
     /** Pawn piece*/
@@ -26,58 +30,246 @@ public class ChessConfig implements Configuration {
     private final static char QUEEN = 'Q';
     /** King piece*/
     private final static char KING = 'K';
+    /** The pieces in the order of their 3 bit codes in a key*/
+    private final static String PIECE_CODES = "PBNRQK";
+    /** How many piece codes are packed into each long of a key*/
+    private final static int CODES_PER_LONG = 21;
+    /** Move codes hold the square moved from and the square captured in this many bits each,
+     * then the captured piece's code and the symmetry the board was turned by,
+     * so boards can have up to 4096 squares*/
+    private final static int SQUARE_BITS = 12;
+    private final static int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+    private final static int PIECE_SHIFT = 2 * SQUARE_BITS;
+    private final static int SYMMETRY_SHIFT = PIECE_SHIFT + 3;
 
 
-    private static int BOARD_ROWS;
-    private static int BOARD_COLS;
+    /** Every capture removes exactly one piece, so this is the exact number of moves left*/
+    public static final Heuristic HEURISTIC = config -> ((ChessConfig) config).getMovesLeft();
+
+    /** The most captures one piece can have, a queen looking in 8 directions*/
+    private final static int MAX_PIECE_MOVES = 8;
+    /** The 8 moves of the knight*/
+    final static int[] KNIGHT_ROWS = {1, 1, 2, 2, -2, -2, -1, -1};
+    final static int[] KNIGHT_COLS = {-2, 2, -1, 1, -1, 1, -2, 2};
+    /** The 8 moves next to the king*/
+    final static int[] KING_ROWS = {1, 1, 1, 0, 0, -1, -1, -1};
+    final static int[] KING_COLS = {-1, 0, 1, 1, -1, -1, 0, 1};
+    /** The bishop's diagonals: up left, up right, bottom left, bottom right*/
+    final static int[] BISHOP_ROWS = {-1, -1, 1, 1};
+    final static int[] BISHOP_COLS = {-1, 1, -1, 1};
+    /** The rook's directions: up, right, left, down*/
+    final static int[] ROOK_ROWS = {-1, 0, 0, 1};
+    final static int[] ROOK_COLS = {0, 1, -1, 0};
+
+    /** The board size and hashing keys shared by every config of the same puzzle,
+     * so different puzzles can be solved at once*/
+    private final ChessBoard layout;
     private char[][] board;
+    /** Zobrist hash of the board, kept up to date with each capture*/
+    private long zobrist;
     private int piecesRemaining;
-    private ArrayList<Coordinates> pieceLocations;
+    /** The occupied squares as bitboards (see ChessBoard), both 0 on boards too big for them*/
+    private long occupiedLo;
+    private long occupiedHi;
+    /** The capture that made this config, NO_MOVE if it was not made by one*/
+    private int moveCode = NO_MOVE;
     public ChessConfig(String filename) throws IOException {
-        try (BufferedReader in = new BufferedReader(new FileReader(filename))) {
-            // read first line: rows cols
-            String[] fields = in.readLine().split("\\s+");
-            BOARD_ROWS = Integer.parseInt(fields[0]);
-            BOARD_COLS = Integer.parseInt(fields[1]);
-            board = new char[BOARD_ROWS][BOARD_COLS];
-            piecesRemaining = 0;
-            pieceLocations = new ArrayList<>();
-
-            //Build the board based on what is read in
-            for(int i = 0; i < BOARD_ROWS; i++)
-            {
-                fields = in.readLine().split("\\s+");
-                for (int j = 0; j < BOARD_COLS; j++) {
-                    board[i][j] = fields[j].charAt(0);
-                    //Counting the number of pieces
-                    if(board[i][j] != EMPTY) {
-                        piecesRemaining++;
-                        pieceLocations.add(new Coordinates(i, j));
-                    }
+        this(filename, true);
+    }
+    /**
+     * Reads in a puzzle, choosing how moves are found
+     * @param filename the name of the file, in either of BoardFile's formats
+     * @param bitboards whether to use bitboards when the board is small enough, otherwise walk the board
+     * @throws IOException if the file cannot be read or has a piece that is not one of PIECE_CODES
+     */
+    ChessConfig(String filename, boolean bitboards) throws IOException {
+        this(readBoard(filename), bitboards);
+    }
+    /**
+     * Sets up a puzzle from a board that has already been read, such as by BoardFile
+     * @param cells the board, indexed [row][col], which is copied
+     * @throws IllegalArgumentException if its rows are different lengths or it has a piece that is not one of PIECE_CODES
+     */
+    public ChessConfig(char[][] cells) {
+        this(copyBoard(cells), true);
+    }
+    /**
+     * Sets up a puzzle from a board that has been checked
+     * @param board the board, which is kept
+     * @param bitboards whether to use bitboards when the board is small enough, otherwise walk the board
+     */
+    private ChessConfig(char[][] board, boolean bitboards) {
+        this.board = board;
+        layout = new ChessBoard(board.length, board.length == 0 ? 0 : board[0].length, bitboards);
+        piecesRemaining = 0;
+
+        //Count the pieces on the board that was read in
+        for(int i = 0; i < layout.rows; i++)
+        {
+            for (int j = 0; j < layout.cols; j++) {
+                if(board[i][j] != EMPTY) {
+                    piecesRemaining++;
+                    setOccupied(i * layout.cols + j);
+                    zobrist ^= layout.zobrist(i * layout.cols + j, pieceCode(board[i][j]));
                 }
             }
         }
     }
+
+    // Reads a board from a file and checks it
+    private static char[][] readBoard(String filename) throws IOException {
+        char[][] cells = BoardFile.read(filename);
+        String problem = checkBoard(cells);
+        if(problem != null)
+            throw new IOException(filename + ": " + problem);
+        return cells;
+    }
+
+    // Checks a board handed in and copies it
+    private static char[][] copyBoard(char[][] cells) {
+        String problem = checkBoard(cells);
+        if(problem != null)
+            throw new IllegalArgumentException(problem);
+        char[][] board = new char[cells.length][];
+        for(int i = 0; i < cells.length; i++)
+            board[i] = cells[i].clone();
+        return board;
+    }
+
+    /**
+     * Checks a board has rows of the same length and only empty squares and known pieces
+     * @param cells the board
+     * @return what is wrong with it, null if nothing is
+     */
+    private static String checkBoard(char[][] cells) {
+        for(int i = 0; i < cells.length; i++)
+        {
+            if(cells[i].length != cells[0].length)
+                return "row " + i + " has " + cells[i].length + " of " + cells[0].length + " squares";
+            for (int j = 0; j < cells[i].length; j++) {
+                if(cells[i][j] != EMPTY && pieceCode(cells[i][j]) < 0)
+                    return "unknown piece '" + cells[i][j] + "' at row " + i + ", column " + j;
+            }
+        }
+        return null;
+    }
     public ChessConfig(ChessConfig other, Coordinates src, Coordinates dest)
     {
-        //Copying the piece locations list
-        pieceLocations = new ArrayList<>(other.pieceLocations);
-
+        this(other, src.row(), src.col(), dest.row(), dest.col());
+    }
+    /**
+     * Makes the config after a capture
+     * @param other the config before the capture
+     * @param srcRow row of the capturing piece
+     * @param srcCol column of the capturing piece
+     * @param destRow row of the captured piece
+     * @param destCol column of the captured piece
+     */
+    private ChessConfig(ChessConfig other, int srcRow, int srcCol, int destRow, int destCol)
+    {
+        layout = other.layout;
         //Copying board
-        board = new char[BOARD_ROWS][BOARD_COLS];
-        for(int i = 0; i < BOARD_ROWS; i++)
+        board = new char[layout.rows][layout.cols];
+        for(int i = 0; i < layout.rows; i++)
         {
-            if (BOARD_COLS >= 0) {
-                System.arraycopy(other.board[i], 0, board[i], 0, BOARD_COLS);
-            }
+            System.arraycopy(other.board[i], 0, board[i], 0, layout.cols);
         }
-        //Moving the piece
-        board[dest.row()][dest.col()] = board[src.row()][src.col()];
-        board[src.row()][src.col()] = EMPTY;
+        //Moving the piece, rehashing only the two squares that change
+        int moving = pieceCode(board[srcRow][srcCol]);
+        int captured = pieceCode(board[destRow][destCol]);
+        zobrist = other.zobrist
+                ^ layout.zobrist(srcRow * layout.cols + srcCol, moving)
+                ^ layout.zobrist(destRow * layout.cols + destCol, captured)
+                ^ layout.zobrist(destRow * layout.cols + destCol, moving);
+        board[destRow][destCol] = board[srcRow][srcCol];
+        board[srcRow][srcCol] = EMPTY;
 
-        //Removing a piece
-        pieceLocations.remove(src);
+        //The captured square stays occupied, only the square left behind empties
+        int srcSquare = srcRow * layout.cols + srcCol;
+        occupiedLo = other.occupiedLo & ~(srcSquare < 64 ? 1L << srcSquare : 0);
+        occupiedHi = other.occupiedHi & ~(srcSquare >= 64 ? 1L << (srcSquare - 64) : 0);
         piecesRemaining = other.piecesRemaining-1;
+        moveCode = srcSquare | (destRow * layout.cols + destCol) << SQUARE_BITS | captured << PIECE_SHIFT;
+    }
+
+    /**
+     * Rebuilds a config of the same puzzle from a board that has already been filled in
+     * @param layout the puzzle's board size and hashing keys
+     * @param board the board, which is not copied
+     */
+    private ChessConfig(ChessBoard layout, char[][] board)
+    {
+        this.layout = layout;
+        this.board = board;
+        piecesRemaining = 0;
+        for(int i = 0; i < layout.rows; i++)
+        {
+            for (int j = 0; j < layout.cols; j++) {
+                if(board[i][j] != EMPTY) {
+                    piecesRemaining++;
+                    setOccupied(i * layout.cols + j);
+                    zobrist ^= layout.zobrist(i * layout.cols + j, pieceCode(board[i][j]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a square as occupied in the bitboards, if the board uses them
+     * @param square the square, row * columns + col
+     */
+    private void setOccupied(int square)
+    {
+        if(!layout.bitboards)
+            return;
+        if(square < 64)
+            occupiedLo |= 1L << square;
+        else
+            occupiedHi |= 1L << (square - 64);
+    }
+
+    /**
+     * Checks whether a square has a piece on it using the bitboards
+     * @param square the square, row * columns + col
+     * @return true if there is a piece
+     */
+    private boolean isOccupied(int square)
+    {
+        return square < 64 ? (occupiedLo & (1L << square)) != 0 : (occupiedHi & (1L << (square - 64))) != 0;
+    }
+
+    /**
+     * Finds the next piece in row major order
+     * @param square the first square to look at, row * columns + col
+     * @return the square of the next piece, -1 if there are no more
+     */
+    private int nextPiece(int square)
+    {
+        if(layout.bitboards) {
+            if(square < 64) {
+                long bits = occupiedLo & (-1L << square);
+                if(bits != 0)
+                    return Long.numberOfTrailingZeros(bits);
+                square = 64;
+            }
+            long bits = occupiedHi & (-1L << (square - 64));
+            return square < 128 && bits != 0 ? 64 + Long.numberOfTrailingZeros(bits) : -1;
+        }
+        for(; square < layout.rows * layout.cols; square++) {
+            if(board[square / layout.cols][square % layout.cols] != EMPTY)
+                return square;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the code of a piece, its position in PIECE_CODES
+     * @param piece the piece character
+     * @return the code
+     */
+    private static int pieceCode(char piece)
+    {
+        return PIECE_CODES.indexOf(piece);
     }
 
     /**
@@ -91,337 +283,539 @@ public class ChessConfig implements Configuration {
     }
     /**
      * Gets the valid moves of the specified piece
-     * Calls the respective get___Moves function
      * @param piece type of piece
      * @param pos position of the piece
      * @return a list of moves the specified piece can go to take a piece
      */
     public ArrayList<Coordinates> getPieceMoves(char piece, Coordinates pos)
     {
+        int[] moves = new int[MAX_PIECE_MOVES];
+        int count = getPieceMoves(piece, pos.row(), pos.col(), moves);
+        ArrayList<Coordinates> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new Coordinates(moves[i] / layout.cols, moves[i] % layout.cols));
+        }
+        return list;
+    }
+    /**
+     * Writes the squares the specified piece can move to to take a piece into a buffer
+     * Calls the respective get___Moves function
+     * @param piece type of piece
+     * @param row row of the piece
+     * @param col column of the piece
+     * @param moves where to write the squares, as row * columns + col, needs room for MAX_PIECE_MOVES
+     * @return the number of squares written
+     */
+    private int getPieceMoves(char piece, int row, int col, int[] moves)
+    {
+        if(layout.bitboards) {
+            return getBitboardMoves(piece, row * layout.cols + col, moves);
+        }
+        //Boards too big for bitboards walk out from the piece instead
         switch (piece) {
             case PAWN -> {
-                return getPawnMoves(pos);
+                return getPawnMoves(row, col, moves);
             }
             case BISHOP -> {
-                return getBishopMoves(pos);
+                return getSlidingMoves(row, col, BISHOP_ROWS, BISHOP_COLS, moves, 0);
             }
             case KNIGHT -> {
-                return getKnightMoves(pos);
+                return getJumpMoves(row, col, KNIGHT_ROWS, KNIGHT_COLS, moves);
             }
             case ROOK -> {
-                return getRookMoves(pos);
+                return getSlidingMoves(row, col, ROOK_ROWS, ROOK_COLS, moves, 0);
             }
             case QUEEN -> {
-                return getQueenMoves(pos);
+                //Just combines the moves of bishops and rooks
+                int count = getSlidingMoves(row, col, BISHOP_ROWS, BISHOP_COLS, moves, 0);
+                return getSlidingMoves(row, col, ROOK_ROWS, ROOK_COLS, moves, count);
             }
             case KING -> {
-                return getKingMoves(pos);
+                return getJumpMoves(row, col, KING_ROWS, KING_COLS, moves);
             }
             default -> {
             }
         }
-        return null;
+        return 0;
     }
     /**
-     * Gets all the pawn moves that takes a piece
-     * @param pos position of the pawn
-     * @return a list of places the pawn will move to take a piece, list will be empty if there are none
+     * Writes the squares the specified piece can move to to take a piece into a buffer,
+     * in the same order as walking the board, using the bitboards and ChessBoard's tables
+     * @param piece type of piece
+     * @param square the piece's square, row * columns + col
+     * @param moves where to write the squares, needs room for MAX_PIECE_MOVES
+     * @return the number of squares written
      */
-    private ArrayList<Coordinates> getPawnMoves(Coordinates pos)
+    private int getBitboardMoves(char piece, int square, int[] moves)
     {
-        ArrayList<Coordinates> moves = new ArrayList<>();
-        if(pos.row() == 0)
-            return moves;
-        //If the pawn is not on far left
-        if(pos.col() > 0){
-            Coordinates temp = new Coordinates(pos.row()-1, pos.col()-1);
-            if(getPiece(temp) != EMPTY)
-                moves.add(temp);
-        }
-        //If the pawn is not on far right
-        if(pos.col() < BOARD_COLS-1){
-            Coordinates temp = new Coordinates(pos.row()-1, pos.col()+1);
-            if(getPiece(temp) != EMPTY)
-                moves.add(temp);
+        switch (piece) {
+            case PAWN -> {
+                return getJumpCaptures(square, layout.pawnTargets, layout.pawnAttacks, moves);
+            }
+            case BISHOP -> {
+                return getSlidingCaptures(square, ChessBoard.BISHOP_DIRECTIONS, moves, 0);
+            }
+            case KNIGHT -> {
+                return getJumpCaptures(square, layout.knightTargets, layout.knightAttacks, moves);
+            }
+            case ROOK -> {
+                return getSlidingCaptures(square, ChessBoard.ROOK_DIRECTIONS, moves, 0);
+            }
+            case QUEEN -> {
+                int count = getSlidingCaptures(square, ChessBoard.BISHOP_DIRECTIONS, moves, 0);
+                return getSlidingCaptures(square, ChessBoard.ROOK_DIRECTIONS, moves, count);
+            }
+            case KING -> {
+                return getJumpCaptures(square, layout.kingTargets, layout.kingAttacks, moves);
+            }
+            default -> {
+            }
         }
-        return moves;
+        return 0;
     }
     /**
-     * Gets all the knight moves that takes a piece
-     * @param pos position of the knight
-     * @return a list of places the knight will move to take a piece, list will be empty if there are none
+     * Gets the captures of a pawn, knight or king from the bitboards
+     * @param targets the squares the piece attacks from each square
+     * @param attacks the same squares as bitboards
+     * @return the number of places the piece will move to take a piece
      */
-    private ArrayList<Coordinates> getKnightMoves(Coordinates pos)
+    private int getJumpCaptures(int square, int[][] targets, long[] attacks, int[] moves)
     {
-        ArrayList<Coordinates> moves = new ArrayList<>();
-        //Generate all 8 moves of the knight
-        moves.add(new Coordinates(pos.row()+1, pos.col()-2));
-        moves.add(new Coordinates(pos.row()+1, pos.col()+2));
-        moves.add(new Coordinates(pos.row()+2, pos.col()-1));
-        moves.add(new Coordinates(pos.row()+2, pos.col()+1));
-        moves.add(new Coordinates(pos.row()-2, pos.col()-1));
-        moves.add(new Coordinates(pos.row()-2, pos.col()+1));
-        moves.add(new Coordinates(pos.row()-1, pos.col()-2));
-        moves.add(new Coordinates(pos.row()-1, pos.col()+2));
-
-        //Filter the moves out
-        ArrayList<Coordinates> finalMoves = new ArrayList<>();
-        for (Coordinates move: moves) {
-            //Check if the moves are inside the board and if it takes a piece
-            if(move.row() >= 0 && move.row() < BOARD_ROWS &&
-               move.col() >= 0 && move.col() < BOARD_COLS &&
-               getPiece(move) != EMPTY) {
-                finalMoves.add(move);
-            }
+        //Most of the time nothing is attacked, which the masks show at once
+        if((attacks[square * 2] & occupiedLo) == 0 && (attacks[square * 2 + 1] & occupiedHi) == 0)
+            return 0;
+        int count = 0;
+        for (int target : targets[square]) {
+            if(isOccupied(target))
+                moves[count++] = target;
         }
-        return finalMoves;
+        return count;
     }
     /**
-     * Gets all the bishop moves that takes a piece
-     * @param pos position of the bishop
-     * @return a list of places the bishop will move to take a piece, list will be empty if there are none
+     * Gets the captures of a bishop or rook from the bitboards
+     * Finds the nearest piece in each direction, then sorts them nearest first
+     * so they come out in the same order as getSlidingMoves
+     * @param firstDirection the first of the four directions to look in
+     * @param count the number of moves already in the buffer
+     * @return the number of moves in the buffer afterwards
      */
-    private ArrayList<Coordinates> getBishopMoves(Coordinates pos)
+    private int getSlidingCaptures(int square, int firstDirection, int[] moves, int count)
     {
-        ArrayList<Coordinates> moves = new ArrayList<>();
-        //booleans for whether to check a diagonal
-        boolean upleft = true;
-        boolean upright = true;
-        boolean botleft = true;
-        boolean botright = true;
-        //Scanning the diagonals until they reach a border or piece
-        for (int i = 1; upleft || upright || botleft || botright; i++) {
-            Coordinates tempmove;
-            if(upleft)
-            {
-                tempmove = new Coordinates(pos.row()-i, pos.col()-i);
-                //Hitting out of the board, so it will stop checking upper left
-                if(tempmove.row() < 0 || tempmove.col() < 0) {
-                    upleft = false;
-                }
-                //If there is a piece hit then add that move to list of moves and stop checking
-                else if (getPiece(tempmove) != EMPTY) {
-                    moves.add(tempmove);
-                    upleft = false;
-                }
-            }
-            if(upright)
-            {
-                tempmove = new Coordinates(pos.row()-i, pos.col()+i);
-                //Hitting out of the board, so it will stop checking upper right
-                if(tempmove.row() < 0 || tempmove.col() > BOARD_COLS-1) {
-                    upright = false;
-                }
-                //If there is a piece hit then add that move to list of moves and stop checking
-                else if (getPiece(tempmove) != EMPTY) {
-                    moves.add(tempmove);
-                    upright = false;
-                }
-            }
-            if(botleft)
-            {
-                tempmove = new Coordinates(pos.row()+i, pos.col()-i);
-                //Hitting out of the board, so it will stop checking bottom left
-                if(tempmove.row() > BOARD_ROWS-1 || tempmove.col() < 0) {
-                    botleft = false;
-                }
-                //If there is a piece hit then add that move to list of moves and stop checking
-                else if (getPiece(tempmove) != EMPTY) {
-                    moves.add(tempmove);
-                    botleft = false;
-                }
-            }
-            if(botright)
-            {
-                tempmove = new Coordinates(pos.row()+i, pos.col()+i);
-                //Hitting out of the board, so it will stop checking upper right
-                if(tempmove.row() > BOARD_ROWS-1 || tempmove.col() > BOARD_COLS-1) {
-                    botright = false;
-                }
-                //If there is a piece hit then add that move to list of moves and stop checking
-                else if (getPiece(tempmove) != EMPTY) {
-                    moves.add(tempmove);
-                    botright = false;
+        int first = count;
+        for (int d = firstDirection; d < firstDirection + 4; d++) {
+            int target = layout.firstBlocker(square, d, occupiedLo, occupiedHi);
+            if(target >= 0) {
+                //Insert it after every capture that is as near, ties stay in direction order
+                int distance = layout.distance(square, target);
+                int i = count++;
+                while(i > first && layout.distance(square, moves[i - 1]) > distance) {
+                    moves[i] = moves[i - 1];
+                    i--;
                 }
+                moves[i] = target;
             }
         }
-        return moves;
+        return count;
     }
     /**
-     * Gets all the rook moves that takes a piece
-     * @param pos position of the rook
-     * @return a list of places the rook will move to take a piece, list will be empty if there are none
+     * Gets all the pawn moves that takes a piece
+     * @return the number of places the pawn will move to take a piece
      */
-    private ArrayList<Coordinates> getRookMoves(Coordinates pos)
+    private int getPawnMoves(int row, int col, int[] moves)
     {
-        ArrayList<Coordinates> moves = new ArrayList<>();
-        //booleans for whether to check a direction similar to bishop
-        boolean up = true;
-        boolean right = true;
-        boolean left = true;
-        boolean down = true;
-        //Scanning the directions until they reach a border or piece 
-        for (int i = 1; up || right || left || down; i++) {
-            Coordinates tempmove;
-            if(up)
-            {
-                tempmove = new Coordinates(pos.row()-i, pos.col());
-                //Hitting out of the board, so it will stop checking upward
-                if(tempmove.row() < 0) {
-                    up = false;
-                }
-                //If there is a piece hit then add that move to list of moves and stop checking
-                else if (getPiece(tempmove) != EMPTY) {
-                    moves.add(tempmove);
-                    up = false;
-                }
-            }
-            if(right)
-            {
-                tempmove = new Coordinates(pos.row(), pos.col()+i);
-                //Hitting out of the board, so it will stop checking right
-                if(tempmove.col() > BOARD_COLS-1) {
-                    right = false;
-                }
-                //If there is a piece hit then add that move to list of moves and stop checking
-                else if (getPiece(tempmove) != EMPTY) {
-                    moves.add(tempmove);
-                    right = false;
-                }
-            }
-            if(left)
-            {
-                tempmove = new Coordinates(pos.row(), pos.col()-i);
-                //Hitting out of the board, so it will stop checking left
-                if(tempmove.col() < 0) {
-                    left = false;
-                }
-                //If there is a piece hit then add that move to list of moves and stop checking
-                else if (getPiece(tempmove) != EMPTY) {
-                    moves.add(tempmove);
-                    left = false;
-                }
-            }
-            if(down)
-            {
-                tempmove = new Coordinates(pos.row()+i, pos.col());
-                //Hitting out of the board, so it will stop checking downwards
-                if(tempmove.row() > BOARD_ROWS-1) {
-                    down = false;
-                }
-                //If there is a piece hit then add that move to list of moves and stop checking
-                else if (getPiece(tempmove) != EMPTY) {
-                    moves.add(tempmove);
-                    down = false;
-                }
-            }
-        }
-        return moves;
+        int count = 0;
+        if(row == 0)
+            return count;
+        //If the pawn is not on far left
+        if(col > 0 && board[row-1][col-1] != EMPTY)
+            moves[count++] = (row-1) * layout.cols + col-1;
+        //If the pawn is not on far right
+        if(col < layout.cols-1 && board[row-1][col+1] != EMPTY)
+            moves[count++] = (row-1) * layout.cols + col+1;
+        return count;
     }
     /**
-     * Gets all the queen moves that takes a piece
-     * @param pos position of the queen
-     * @return a list of places the queen will move to take a piece, list will be empty if there are none
+     * Gets all the moves of a knight or king that takes a piece
+     * @param rowSteps the row change of each move the piece can make
+     * @param colSteps the column change of each move the piece can make
+     * @return the number of places the piece will move to take a piece
      */
-    private ArrayList<Coordinates> getQueenMoves(Coordinates pos)
+    private int getJumpMoves(int row, int col, int[] rowSteps, int[] colSteps, int[] moves)
     {
-        //Just combines the moves of bishops and rooks
-        ArrayList<Coordinates> moves = getBishopMoves(pos);
-        moves.addAll(getRookMoves(pos));
-        return moves;
+        int count = 0;
+        for (int i = 0; i < rowSteps.length; i++) {
+            int moveRow = row + rowSteps[i];
+            int moveCol = col + colSteps[i];
+            //Check if the moves are inside the board and if it takes a piece
+            if(moveRow >= 0 && moveRow < layout.rows &&
+               moveCol >= 0 && moveCol < layout.cols &&
+               board[moveRow][moveCol] != EMPTY) {
+                moves[count++] = moveRow * layout.cols + moveCol;
+            }
+        }
+        return count;
     }
     /**
-     * Gets all the king moves that takes a piece
-     * @param pos position of the king
-     * @return a list of places the king will move to take a piece, list will be empty if there are none
+     * Gets all the moves of a bishop or rook that takes a piece
+     * Scans every direction one step at a time until they reach a border or piece,
+     * so moves come out nearest first
+     * @param rowSteps the row change of one step in each direction
+     * @param colSteps the column change of one step in each direction
+     * @param count the number of moves already in the buffer
+     * @return the number of moves in the buffer afterwards
      */
-    private ArrayList<Coordinates> getKingMoves(Coordinates pos)
+    private int getSlidingMoves(int row, int col, int[] rowSteps, int[] colSteps, int[] moves, int count)
     {
-        ArrayList<Coordinates> moves = new ArrayList<>();
-        //Generate the 8 moves next to the king
-        moves.add(new Coordinates(pos.row()+1, pos.col()-1));
-        moves.add(new Coordinates(pos.row()+1, pos.col()));
-        moves.add(new Coordinates(pos.row()+1, pos.col()+1));
-        moves.add(new Coordinates(pos.row(), pos.col()+1));
-        moves.add(new Coordinates(pos.row(), pos.col()-1));
-        moves.add(new Coordinates(pos.row()-1, pos.col()-1));
-        moves.add(new Coordinates(pos.row()-1, pos.col()));
-        moves.add(new Coordinates(pos.row()-1, pos.col()+1));
-
-        //Filter the moves out
-        ArrayList<Coordinates> finalMoves = new ArrayList<>();
-        for (Coordinates move: moves) {
-            //Check if the moves are inside the board and if it takes a piece
-            if(move.row() >= 0 && move.row() < BOARD_ROWS &&
-                    move.col() >= 0 && move.col() < BOARD_COLS &&
-                    getPiece(move) != EMPTY) {
-                finalMoves.add(move);
+        //bits for whether to check a direction
+        int scanning = (1 << rowSteps.length) - 1;
+        for (int i = 1; scanning != 0; i++) {
+            for (int d = 0; d < rowSteps.length; d++) {
+                if((scanning & (1 << d)) != 0)
+                {
+                    int moveRow = row + i * rowSteps[d];
+                    int moveCol = col + i * colSteps[d];
+                    //Hitting out of the board, so it will stop checking this direction
+                    if(moveRow < 0 || moveRow > layout.rows-1 || moveCol < 0 || moveCol > layout.cols-1) {
+                        scanning &= ~(1 << d);
+                    }
+                    //If there is a piece hit then add that move to list of moves and stop checking
+                    else if (board[moveRow][moveCol] != EMPTY) {
+                        moves[count++] = moveRow * layout.cols + moveCol;
+                        scanning &= ~(1 << d);
+                    }
+                }
             }
         }
-        return finalMoves;
+        return count;
     }
     @Override
     public boolean isSolution() {
         return piecesRemaining == 1;
     }
 
+    /** Every capture removes one piece and a solution has one left*/
+    @Override
+    public int getMovesLeft() {
+        return piecesRemaining - 1;
+    }
+
+    /**
+     * Checks for a piece that can never take part in a capture. A capture happens on a square
+     * both pieces could get to, so a piece whose squares (see ChessBoard's reach) meet none of
+     * the other pieces' squares stays on the board with at least one other piece.
+     * Only boards with bitboards are checked. Boards with few enough pieces for the
+     * board's ChessTablebase, if it has one, are looked up in it instead.
+     * @return true if a piece can never capture or be captured
+     */
+    @Override
+    public boolean isDead() {
+        if(!layout.bitboards || piecesRemaining < 2)
+            return false;
+        if(layout.tablebase != null && piecesRemaining <= layout.tablebase.getPieces()) {
+            int[] squares = new int[piecesRemaining];
+            int[] codes = new int[piecesRemaining];
+            int count = 0;
+            for (int square = nextPiece(0); square >= 0; square = nextPiece(square + 1)) {
+                squares[count] = square;
+                codes[count++] = pieceCode(pieceAt(square));
+            }
+            return !layout.tablebase.isSolvable(squares, codes, count);
+        }
+        long[] reachLo = new long[piecesRemaining];
+        long[] reachHi = new long[piecesRemaining];
+        int count = 0;
+        int squares = layout.rows * layout.cols;
+        for (int square = nextPiece(0); square >= 0; square = nextPiece(square + 1)) {
+            int index = (pieceCode(pieceAt(square)) * squares + square) * 2;
+            reachLo[count] = layout.reach[index];
+            reachHi[count] = layout.reach[index + 1];
+            count++;
+        }
+        //Each piece against the squares of the pieces before it and after it
+        long[] afterLo = new long[count + 1];
+        long[] afterHi = new long[count + 1];
+        for (int i = count - 1; i >= 0; i--) {
+            afterLo[i] = afterLo[i + 1] | reachLo[i];
+            afterHi[i] = afterHi[i + 1] | reachHi[i];
+        }
+        long beforeLo = 0, beforeHi = 0;
+        for (int i = 0; i < count; i++) {
+            if((reachLo[i] & (beforeLo | afterLo[i + 1])) == 0 && (reachHi[i] & (beforeHi | afterHi[i + 1])) == 0)
+                return true;
+            beforeLo |= reachLo[i];
+            beforeHi |= reachHi[i];
+        }
+        return false;
+    }
+
     @Override
     public Collection<Configuration> getNeighbors() {
         Collection<Configuration> neighbors = new LinkedList<>();
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    @Override
+    public void forEachNeighbor(Consumer<? super Configuration> action) {
+        int[] moves = new int[MAX_PIECE_MOVES];
         //Loop through every piece
-        for (Coordinates pieceLoc: pieceLocations) {
+        for (int square = nextPiece(0); square >= 0; square = nextPiece(square + 1)) {
+            int row = square / layout.cols;
+            int col = square % layout.cols;
             //For each piece get its valid moves
-            ArrayList<Coordinates> validMoves = getPieceMoves(getPiece(pieceLoc), pieceLoc);
+            int count = getPieceMoves(board[row][col], row, col, moves);
             //Then create the configurations
-            for (Coordinates validMove: validMoves) {
-                neighbors.add(new ChessConfig(this, pieceLoc, validMove));
+            for (int i = 0; i < count; i++) {
+                action.accept(new ChessConfig(this, row, col,
+                        moves[i] / layout.cols, moves[i] % layout.cols));
             }
         }
-        return neighbors;
     }
 
     @Override
     public boolean equals(Object other) {
+        //Boards with different hashes always differ, only matching hashes need the full check
         if(other instanceof ChessConfig oth)
-            return Arrays.deepEquals(this.board, oth.board);
+            return this.zobrist == oth.zobrist && Arrays.deepEquals(this.board, oth.board);
         return false;
     }
 
+    /**
+     * Gets the least image of the board under its symmetries, comparing square by square
+     * in row major order. Pawns only capture upwards, so boards with a pawn can only be
+     * mirrored left to right. The canonical config keeps the capture that made this one,
+     * along with the symmetry, so undoing it gives back this config's parent.
+     * @return the canonical config, this if the board already is its least image
+     */
+    @Override
+    public ChessConfig getCanonical() {
+        int[][] symmetries = layout.symmetries;
+        int count = hasPawns() ? ChessBoard.PAWN_SYMMETRIES : symmetries.length;
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if(compareImages(symmetries[i], symmetries[best]) < 0)
+                best = i;
+        }
+        if(best == 0)
+            return this;
+        //Building the board seen through the best symmetry
+        int[] squareMap = symmetries[best];
+        char[][] newBoard = new char[layout.rows][layout.cols];
+        for (int square = 0; square < squareMap.length; square++) {
+            newBoard[square / layout.cols][square % layout.cols] = pieceAt(squareMap[square]);
+        }
+        ChessConfig canonical = new ChessConfig(layout, newBoard);
+        if(moveCode != NO_MOVE)
+            canonical.moveCode = moveCode | best << SYMMETRY_SHIFT;
+        return canonical;
+    }
+
+    /**
+     * Compares the board seen through two symmetries, the first differing square decides
+     * @param a one square map
+     * @param b the other square map
+     * @return negative if a's image comes first, 0 if they are the same
+     */
+    private int compareImages(int[] a, int[] b) {
+        for (int square = 0; square < a.length; square++) {
+            int diff = pieceAt(a[square]) - pieceAt(b[square]);
+            if(diff != 0)
+                return diff;
+        }
+        return 0;
+    }
+
+    /** Gets the piece on a square, numbered row * columns + col*/
+    private char pieceAt(int square) {
+        return board[square / layout.cols][square % layout.cols];
+    }
+
+    /** Checks if there are pawns left, which limit the symmetries*/
+    private boolean hasPawns() {
+        for (char[] row : board) {
+            for (char piece : row) {
+                if(piece == PAWN)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The key is an occupancy bit per square followed by a 3 bit piece code
+     * for each occupied square in row major order.
+     * Captures only remove pieces so no later config needs a longer key.
+     */
+    @Override
+    public int getKeyLength() {
+        int occupancyLongs = (layout.rows * layout.cols + 63) / 64;
+        return occupancyLongs + (piecesRemaining + CODES_PER_LONG - 1) / CODES_PER_LONG;
+    }
+
+    @Override
+    public void writeKey(long[] dest, int offset) {
+        int occupancyLongs = (layout.rows * layout.cols + 63) / 64;
+        Arrays.fill(dest, offset, offset + getKeyLength(), 0);
+        int piece = 0;
+        for(int i = 0; i < layout.rows; i++)
+        {
+            for (int j = 0; j < layout.cols; j++) {
+                if(board[i][j] != EMPTY) {
+                    int square = i * layout.cols + j;
+                    dest[offset + square / 64] |= 1L << (square % 64);
+                    long code = pieceCode(board[i][j]);
+                    dest[offset + occupancyLongs + piece / CODES_PER_LONG] |= code << (3 * (piece % CODES_PER_LONG));
+                    piece++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public ChessConfig fromKey(long[] src, int offset) {
+        int occupancyLongs = (layout.rows * layout.cols + 63) / 64;
+        char[][] newBoard = new char[layout.rows][layout.cols];
+        int piece = 0;
+        for(int i = 0; i < layout.rows; i++)
+        {
+            for (int j = 0; j < layout.cols; j++) {
+                int square = i * layout.cols + j;
+                if((src[offset + square / 64] & (1L << (square % 64))) != 0) {
+                    long codes = src[offset + occupancyLongs + piece / CODES_PER_LONG];
+                    newBoard[i][j] = PIECE_CODES.charAt((int) (codes >>> (3 * (piece % CODES_PER_LONG))) & 7);
+                    piece++;
+                }
+                else {
+                    newBoard[i][j] = EMPTY;
+                }
+            }
+        }
+        return new ChessConfig(layout, newBoard);
+    }
+
+    @Override
+    public int getMoveCode() {
+        return moveCode;
+    }
+
+    /**
+     * Turns the board back through the symmetry in the code, then moves the capturing
+     * piece back and puts back the piece it took
+     * @param moveCode the code of the capture
+     * @return the config before the capture
+     */
+    @Override
+    public ChessConfig undoMove(int moveCode) {
+        int[] squareMap = layout.symmetries[moveCode >>> SYMMETRY_SHIFT];
+        char[][] newBoard = new char[layout.rows][layout.cols];
+        for (int square = 0; square < squareMap.length; square++) {
+            int original = squareMap[square];
+            newBoard[original / layout.cols][original % layout.cols] = pieceAt(square);
+        }
+        int src = moveCode & SQUARE_MASK;
+        int dest = (moveCode >>> SQUARE_BITS) & SQUARE_MASK;
+        char[] srcRow = newBoard[src / layout.cols];
+        char[] destRow = newBoard[dest / layout.cols];
+        srcRow[src % layout.cols] = destRow[dest % layout.cols];
+        destRow[dest % layout.cols] = PIECE_CODES.charAt((moveCode >>> PIECE_SHIFT) & 7);
+        return new ChessConfig(layout, newBoard);
+    }
+
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(zobrist);
+    }
+
+    /** The Zobrist hash of the board, which is the same for equal keys*/
+    @Override
+    public long getKeyHash() {
+        return zobrist;
     }
 
     @Override
     public String toString() {
         StringBuilder output = new StringBuilder();
-        for(int i = 0; i < BOARD_ROWS; i++)
+        for(int i = 0; i < layout.rows; i++)
         {
             output.append("\n");
-            for (int j = 0; j < BOARD_COLS; j++) {
+            for (int j = 0; j < layout.cols; j++) {
                 output.append(board[i][j]).append(" ");
             }
         }
         return output.toString();
     }
+    /**
+     * Describes the capture that leads here as the square moved from and the square captured
+     * @param previous the config before the capture
+     * @return the capture, like (0,1) -> (2,3)
+     */
+    @Override
+    public String describeMove(Configuration previous)
+    {
+        if(!(previous instanceof ChessConfig prev)) {
+            return toString();
+        }
+        int fromRow = -1, fromCol = -1, toRow = -1, toCol = -1;
+        for (int i = 0; i < layout.rows; i++) {
+            for (int j = 0; j < layout.cols; j++) {
+                //The moving piece leaves an empty square and replaces the captured piece
+                if(board[i][j] != prev.board[i][j])
+                {
+                    if(board[i][j] == EMPTY) {
+                        fromRow = i;
+                        fromCol = j;
+                    }
+                    else {
+                        toRow = i;
+                        toCol = j;
+                    }
+                }
+            }
+        }
+        if(fromRow < 0) {
+            return toString();
+        }
+        //Capturing the same kind of piece leaves the captured square looking the same
+        if(toRow < 0)
+        {
+            char piece = prev.board[fromRow][fromCol];
+            for(Coordinates move : prev.getPieceMoves(piece, new Coordinates(fromRow, fromCol))) {
+                if(prev.board[move.row()][move.col()] == piece) {
+                    toRow = move.row();
+                    toCol = move.col();
+                    break;
+                }
+            }
+        }
+        return String.format("(%d,%d) -> (%d,%d)", fromRow, fromCol, toRow, toCol);
+    }
+    /** Gets a copy of the board, one character per square*/
+    public char[][] getBoard()
+    {
+        char[][] copy = new char[layout.rows][];
+        for (int i = 0; i < layout.rows; i++) {
+            copy[i] = board[i].clone();
+        }
+        return copy;
+    }
     /** Makes a string representation of the board*/
     public String boardString()
     {
         StringBuilder output = new StringBuilder();
         output.append("   ");
-        for (int i = 0; i < BOARD_COLS; i++) {
+        for (int i = 0; i < layout.cols; i++) {
             output.append(i).append(" ");
         }
         output.append("\n  ");
-        for (int i = 0; i < BOARD_COLS; i++) {
+        for (int i = 0; i < layout.cols; i++) {
             output.append("--");
         }
         output.append("\n");
 
-        for(int i = 0; i < BOARD_ROWS; i++)
+        for(int i = 0; i < layout.rows; i++)
         {
             output.append(i).append("|").append(" ");
-            for (int j = 0; j < BOARD_COLS; j++) {
+            for (int j = 0; j < layout.cols; j++) {
                 output.append(board[i][j]).append(" ");
             }
             output.append("\n");
@@ -431,8 +825,8 @@ public class ChessConfig implements Configuration {
     /**Checks if the given position is within the board and is a piece*/
     public boolean isValidSelection(int row, int col)
     {
-        return row >= 0 && row < BOARD_ROWS &&
-               col >= 0 && col < BOARD_COLS &&
+        return row >= 0 && row < layout.rows &&
+               col >= 0 && col < layout.cols &&
                board[row][col] != EMPTY;
     }
     /**Checks if there are any captures available*/
@@ -440,23 +834,29 @@ public class ChessConfig implements Configuration {
     {
         if(isSolution())
             return false;
-        for (Coordinates pieceLoc: pieceLocations) {
-            //For each piece get its valid moves
-            ArrayList<Coordinates> validMoves = getPieceMoves(getPiece(pieceLoc), pieceLoc);
-            //Then, if there is any move, return true
-            if(validMoves.size() > 0)
+        int[] moves = new int[MAX_PIECE_MOVES];
+        for (int square = nextPiece(0); square >= 0; square = nextPiece(square + 1)) {
+            int row = square / layout.cols;
+            int col = square % layout.cols;
+            //If any piece has a move, return true
+            if(getPieceMoves(board[row][col], row, col, moves) > 0)
                 return true;
         }
         return false;
     }
+    /**Getter for the number of pieces on the board*/
+    public int getPiecesRemaining()
+    {
+        return piecesRemaining;
+    }
     /**Getter for rows*/
     public int getBoardRows()
     {
-        return BOARD_ROWS;
+        return layout.rows;
     }
     /**Getter for columns*/
     public int getBoardCols()
     {
-        return BOARD_COLS;
+        return layout.cols;
     }
 }
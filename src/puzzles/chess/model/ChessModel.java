@@ -1,18 +1,25 @@
 package puzzles.chess.model;
 
+import puzzles.common.BoardUpdate;
 import puzzles.common.Coordinates;
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.SearchWorker;
+import puzzles.common.solver.SolutionCache;
+import puzzles.common.solver.SolutionStore;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class ChessModel {
+    /** how long a solve shows each capture before making the next one */
+    public static final long SOLVE_STEP_MILLIS = 500;
+
     /** the collection of observers of this model */
-    private final List<Observer<ChessModel, String>> observers = new LinkedList<>();
+    private final List<Observer<ChessModel, BoardUpdate>> observers = new LinkedList<>();
 
     /** the current configuration */
     private ChessConfig currentConfig;
@@ -23,23 +30,36 @@ public class ChessModel {
     /** loaded filename*/
     private String loadedfile;
 
+    /** The board as the observers last saw it, null after a load so they rebuild everything*/
+    private char[][] shownBoard;
+
+    /** Solutions found by earlier hints, kept until another puzzle is loaded
+     * Replaced rather than cleared, so a cancelled search that is still finishing cannot touch the new one*/
+    private SolutionCache solutions = new SolutionCache(SolutionStore.shared());
+
+    /** Runs requested hints and solves off the caller's thread*/
+    private final SearchWorker worker;
+
 
     /**
      * The view calls this to add itself as an observer.
      *
      * @param observer the view
      */
-    public void addObserver(Observer<ChessModel, String> observer) {
+    public void addObserver(Observer<ChessModel, BoardUpdate> observer) {
         this.observers.add(observer);
     }
 
     /**
      * The model's state has changed (the counter), so inform the view via
-     * the update method
+     * the update method, along with the squares that changed since the last time
      */
     private void alertObservers(String data) {
+        char[][] board = currentConfig.getBoard();
+        BoardUpdate update = BoardUpdate.between(data, shownBoard, board);
+        shownBoard = board;
         for (var observer : observers) {
-            observer.update(this, data);
+            observer.update(this, update);
         }
     }
 
@@ -48,18 +68,97 @@ public class ChessModel {
     }
 
     public ChessModel(String filename) throws IOException {
+        this(filename, Runnable::run);
+    }
+
+    /**
+     * Creates a model that can search in the background
+     * @param filename the puzzle file
+     * @param notifier runs the background search's updates, a GUI passes its run later
+     */
+    public ChessModel(String filename, Executor notifier) throws IOException {
         currentConfig = new ChessConfig(filename);
         select = null;
         loadedfile = filename;
+        worker = new SearchWorker(notifier, failure -> alertObservers("Search Failed: " + failure));
     }
 
     /** Makes the next move towards the solution
      * If the solution has been reached no move will be made*/
     public void hint()
     {
-        LinkedList<Configuration> configs = Solver.ModelBFSSolver(currentConfig);
+        worker.cancel();
+        //Only searches what earlier hints have not already solved
+        applyHint(solutions.nextStep(currentConfig));
+    }
+
+    /** Finds the next move in the background, then makes it like hint does
+     * Observers are told how the search is going while it runs*/
+    public void requestHint()
+    {
+        ChessConfig start = currentConfig;
+        SolutionCache cache = solutions;
+        worker.submit(publisher -> {
+            Configuration next = cache.nextStep(start, searched ->
+                    publisher.publish(() -> alertObservers("Searching... " + searched + " configurations")));
+            return () -> applyHint(next);
+        });
+        alertObservers("Searching for a hint...");
+    }
+
+    /** Finds the solution in the background, then makes each capture with a pause in between*/
+    public void requestSolve()
+    {
+        ChessConfig start = currentConfig;
+        SolutionCache cache = solutions;
+        worker.submit(publisher -> {
+            List<Configuration> steps = cache.pathFrom(start, searched ->
+                    publisher.publish(() -> alertObservers("Searching... " + searched + " configurations")));
+            if(steps == null) {
+                return () -> alertObservers("Unsolvable Puzzle; Load or Reset.");
+            }
+            if(steps.isEmpty()) {
+                return () -> alertObservers("Puzzle Already Solved; Load or Reset.");
+            }
+            //Every capture but the last is published, the last one finishes the solve
+            for(int i = 0; i < steps.size() - 1; i++)
+            {
+                ChessConfig step = (ChessConfig) steps.get(i);
+                String msg = String.format("Step %d of %d.", i + 1, steps.size());
+                publisher.publish(() -> {
+                    currentConfig = step;
+                    alertObservers(msg);
+                });
+                Thread.sleep(SOLVE_STEP_MILLIS);
+            }
+            ChessConfig last = (ChessConfig) steps.get(steps.size() - 1);
+            return () -> {
+                currentConfig = last;
+                alertObservers(String.format("Solved in %d steps.", steps.size()));
+            };
+        });
+        alertObservers("Solving...");
+    }
+
+    /** Cancels a requested hint or solve*/
+    public void cancel()
+    {
+        if(worker.cancel()) {
+            alertObservers("Search Cancelled.");
+        }
+    }
+
+    /** True while a requested hint or solve has not finished*/
+    public boolean isSearching()
+    {
+        return worker.isRunning();
+    }
+
+    /** Moves to the next step of a hint, or says why there is none*/
+    private void applyHint(Configuration next)
+    {
         //When there are no moves toward a solution
-        if(configs == null) {
+        if(next == null) {
             alertObservers("Unsolvable Puzzle; Load or Reset.");
         }
         //When the solution is reached, no move is made
@@ -69,7 +168,7 @@ public class ChessModel {
         //Otherwise it advances the config by one
         else
         {
-            currentConfig = (ChessConfig) configs.get(1);
+            currentConfig = (ChessConfig) next;
             alertObservers("Next Step.");
         }
     }
@@ -80,10 +179,13 @@ public class ChessModel {
      */
     public void load(String filename)
     {
+        worker.cancel();
         try
         {
             currentConfig = new ChessConfig(filename);
             loadedfile = filename;
+            solutions = new SolutionCache(SolutionStore.shared());
+            shownBoard = null;
             alertObservers("Loaded: " + filename.substring(filename.lastIndexOf("\\") + 1));
         }
         catch(IOException e)
@@ -101,6 +203,8 @@ public class ChessModel {
      */
     public void select(int row, int col)
     {
+        //Touching the board stops any hint or solve
+        worker.cancel();
         //Checking if there are any captures left
         if(!currentConfig.anyValidCaptures())
         {
@@ -155,6 +259,7 @@ public class ChessModel {
      */
     public void reset()
     {
+        worker.cancel();
         try
         {
             currentConfig = new ChessConfig(loadedfile);
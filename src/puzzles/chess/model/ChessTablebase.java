@@ -0,0 +1,340 @@
+package puzzles.chess.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Whether each board of up to PIECES pieces can be solved, for one board size.
+ * Boards are worked out from one piece up: one piece is solved, and a board of k
+ * pieces can be solved when one of its captures leaves a board of k - 1 pieces
+ * that can. The answers are one bit per board in a file that is memory mapped
+ * when it is used, so checking a board is one read.
+ * <p>
+ * Boards with k pieces are numbered by their squares in increasing order, using
+ * the combinatorial number system, then by their piece codes in base PIECE_TYPES.
+ * The file is a header of the magic number, rows, columns and pieces, then the
+ * bits for one piece, then two, and so on.
+ * <p>
+ * Tables are built ahead of time with the puzzles.batch.Tablebase tool, which can
+ * take a while for large boards. Setting the {@value #DIRECTORY_PROPERTY} system
+ * property to a directory then makes every board of a size with bitboards use the
+ * table for its size there, if it has been built. Boards are never held up building one.
+ */
+public final class ChessTablebase {
+    /** The system property naming the directory of the tables, off if it is not set */
+    public static final String DIRECTORY_PROPERTY = "puzzles.chess.tablebase";
+    /** The most pieces a table covers */
+    public static final int PIECES = 3;
+    private static final int MAGIC = 0x43484B54;
+    private static final int HEADER_BYTES = 16;
+    /** The tables opened so far by board size, shared by every board of that size */
+    private static final Map<String, ChessTablebase> opened = new ConcurrentHashMap<>();
+
+    private final int squares;
+    private final int pieces;
+    /** choose[n][k] for n up to squares and k up to pieces */
+    private final long[][] choose;
+    /** where the boards with each number of pieces start, in bits */
+    private final long[] sectionStart;
+    private final MappedByteBuffer bits;
+
+    private ChessTablebase(int squares, int pieces, MappedByteBuffer bits)
+    {
+        this.squares = squares;
+        this.pieces = pieces;
+        this.choose = binomials(squares, pieces);
+        this.sectionStart = sections(choose, squares, pieces);
+        this.bits = bits;
+    }
+
+    /**
+     * Gets the table for a board's size from the {@value #DIRECTORY_PROPERTY} directory
+     * @param layout the board
+     * @return the table, null if the property is not set, the board does not use bitboards
+     * or the table has not been built or cannot be read
+     */
+    static ChessTablebase forBoard(ChessBoard layout)
+    {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        if(directory == null || !layout.bitboards)
+            return null;
+        return opened.computeIfAbsent(fileName(layout.rows, layout.cols, PIECES), name -> {
+            Path file = Path.of(directory).resolve(name);
+            if(!Files.exists(file))
+                return null;
+            try {
+                return open(file, layout);
+            }
+            catch (IOException e) {
+                System.err.println("Chess tablebase unavailable: " + e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Builds the table for a board size, replacing any table already there
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param directory where to write it
+     * @return the file written
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the board is too big for bitboards
+     */
+    public static Path generate(int rows, int cols, Path directory) throws IOException
+    {
+        if(rows < 1 || cols < 1 || rows * cols > ChessBoard.MAX_BITBOARD_SQUARES)
+            throw new IllegalArgumentException("Tables need boards of 1 to "
+                    + ChessBoard.MAX_BITBOARD_SQUARES + " squares");
+        Files.createDirectories(directory);
+        Path file = directory.resolve(fileName(rows, cols, PIECES));
+        generate(new ChessBoard(rows, cols, true), file);
+        return file;
+    }
+
+    // The file for a board size
+    private static String fileName(int rows, int cols, int pieces)
+    {
+        return "chess-" + rows + "x" + cols + "-" + pieces + ".tb";
+    }
+
+    // Maps a table, checking it is the one for the board
+    private static ChessTablebase open(Path file, ChessBoard layout) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer bits = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int squares = layout.rows * layout.cols;
+            int pieces = bits.getInt(12);
+            long length = HEADER_BYTES + (sections(binomials(squares, pieces), squares, pieces)[pieces + 1] + 7) / 8;
+            if(bits.getInt(0) != MAGIC || bits.getInt(4) != layout.rows || bits.getInt(8) != layout.cols
+                    || channel.size() != length)
+                throw new IOException(file + " is not the table for a " + layout.rows + "x" + layout.cols + " board");
+            return new ChessTablebase(squares, pieces, bits);
+        }
+    }
+
+    /**
+     * Gets the number of pieces the table covers
+     * @return boards with this many pieces or fewer can be looked up
+     */
+    int getPieces()
+    {
+        return pieces;
+    }
+
+    /**
+     * Looks up a board
+     * @param boardSquares the occupied squares in increasing order
+     * @param codes the piece code on each of those squares
+     * @param count the number of pieces, at most getPieces()
+     * @return true if the board can be solved
+     */
+    boolean isSolvable(int[] boardSquares, int[] codes, int count)
+    {
+        long bit = sectionStart[count] + rank(choose, boardSquares, codes, count);
+        return (bits.get(HEADER_BYTES + (int) (bit >>> 3)) & (1 << (bit & 7))) != 0;
+    }
+
+    // Works out every board from one piece up and writes the table, through a temporary file of its own
+    private static void generate(ChessBoard layout, Path file) throws IOException
+    {
+        int squares = layout.rows * layout.cols;
+        long[][] choose = binomials(squares, PIECES);
+        long[] start = sections(choose, squares, PIECES);
+        long[] solvable = new long[(int) ((start[PIECES + 1] + 63) / 64)];
+        //Every board with one piece is already solved
+        for(long bit = start[1]; bit < start[2]; bit++)
+            solvable[(int) (bit >>> 6)] |= 1L << bit;
+        Generator generator = new Generator(layout, choose, start, solvable);
+        for(int count = 2; count <= PIECES; count++)
+            generator.fill(count, 0, 0);
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + (int) ((start[PIECES + 1] + 7) / 8));
+        out.putInt(MAGIC).putInt(layout.rows).putInt(layout.cols).putInt(PIECES);
+        for(int i = 0; out.hasRemaining(); i++)
+            out.put((byte) (solvable[i >>> 3] >>> (8 * (i & 7))));
+        out.flip();
+        //A unique name, so builds of the same table in two processes cannot mix their writes
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while(out.hasRemaining())
+                    channel.write(out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /** Goes through every board of a number of pieces, deciding each from the boards after its captures */
+    private static class Generator {
+        private final ChessBoard layout;
+        private final long[][] choose;
+        private final long[] start;
+        private final long[] solvable;
+        private final int[] boardSquares = new int[PIECES];
+        private final int[] codes = new int[PIECES];
+        private final int[] nextSquares = new int[PIECES];
+        private final int[] nextCodes = new int[PIECES];
+
+        Generator(ChessBoard layout, long[][] choose, long[] start, long[] solvable)
+        {
+            this.layout = layout;
+            this.choose = choose;
+            this.start = start;
+            this.solvable = solvable;
+        }
+
+        // Places the piece at index on every square after the one before it, then fills in the boards
+        void fill(int count, int index, int firstSquare)
+        {
+            if(index == count) {
+                fillCodes(count, 0);
+                return;
+            }
+            for(int square = firstSquare; square < layout.rows * layout.cols; square++) {
+                boardSquares[index] = square;
+                fill(count, index + 1, square + 1);
+            }
+        }
+
+        // Tries every piece on the chosen squares
+        private void fillCodes(int count, int index)
+        {
+            if(index < count) {
+                for(int code = 0; code < ChessBoard.PIECE_TYPES; code++) {
+                    codes[index] = code;
+                    fillCodes(count, index + 1);
+                }
+                return;
+            }
+            if(anySolvableCapture(count)) {
+                long bit = start[count] + rank(choose, boardSquares, codes, count);
+                solvable[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        // Checks each capture for one that leaves a board that can be solved
+        private boolean anySolvableCapture(int count)
+        {
+            long occupiedLo = 0, occupiedHi = 0;
+            for(int i = 0; i < count; i++) {
+                if(boardSquares[i] < 64)
+                    occupiedLo |= 1L << boardSquares[i];
+                else
+                    occupiedHi |= 1L << (boardSquares[i] - 64);
+            }
+            for(int from = 0; from < count; from++) {
+                for(int to = 0; to < count; to++) {
+                    if(from != to && captures(codes[from], boardSquares[from], boardSquares[to], occupiedLo, occupiedHi)) {
+                        //The piece lands on the captured square and leaves its own
+                        int next = 0;
+                        for(int i = 0; i < count; i++) {
+                            if(i != from) {
+                                nextSquares[next] = boardSquares[i];
+                                nextCodes[next] = i == to ? codes[from] : codes[i];
+                                next++;
+                            }
+                        }
+                        long bit = start[count - 1] + rank(choose, nextSquares, nextCodes, count - 1);
+                        if((solvable[(int) (bit >>> 6)] & (1L << bit)) != 0)
+                            return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        // Checks if the piece on one square attacks another, in ChessConfig's piece code order
+        private boolean captures(int code, int from, int to, long occupiedLo, long occupiedHi)
+        {
+            switch (code) {
+                case 0 -> {
+                    return attacks(layout.pawnAttacks, from, to);
+                }
+                case 1 -> {
+                    return slides(from, to, ChessBoard.BISHOP_DIRECTIONS, occupiedLo, occupiedHi);
+                }
+                case 2 -> {
+                    return attacks(layout.knightAttacks, from, to);
+                }
+                case 3 -> {
+                    return slides(from, to, ChessBoard.ROOK_DIRECTIONS, occupiedLo, occupiedHi);
+                }
+                case 4 -> {
+                    return slides(from, to, ChessBoard.BISHOP_DIRECTIONS, occupiedLo, occupiedHi)
+                            || slides(from, to, ChessBoard.ROOK_DIRECTIONS, occupiedLo, occupiedHi);
+                }
+                default -> {
+                    return attacks(layout.kingAttacks, from, to);
+                }
+            }
+        }
+
+        private static boolean attacks(long[] table, int from, int to)
+        {
+            return (table[from * 2 + to / 64] & (1L << (to % 64))) != 0;
+        }
+
+        // Checks the four directions from the first one for the target being the nearest piece
+        private boolean slides(int from, int to, int firstDirection, long occupiedLo, long occupiedHi)
+        {
+            for(int d = firstDirection; d < firstDirection + 4; d++) {
+                if(layout.firstBlocker(from, d, occupiedLo, occupiedHi) == to)
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    // The number of a board among those with the same number of pieces
+    private static long rank(long[][] choose, int[] boardSquares, int[] codes, int count)
+    {
+        long squareRank = 0;
+        long codeRank = 0;
+        for(int i = count - 1; i >= 0; i--) {
+            squareRank += choose[boardSquares[i]][i + 1];
+            codeRank = codeRank * ChessBoard.PIECE_TYPES + codes[i];
+        }
+        return squareRank * power(count) + codeRank;
+    }
+
+    private static long power(int count)
+    {
+        long result = 1;
+        for(int i = 0; i < count; i++)
+            result *= ChessBoard.PIECE_TYPES;
+        return result;
+    }
+
+    // Pascal's triangle up to n squares and k pieces
+    private static long[][] binomials(int squares, int pieces)
+    {
+        long[][] choose = new long[squares + 1][pieces + 1];
+        for(int n = 0; n <= squares; n++) {
+            choose[n][0] = 1;
+            for(int k = 1; k <= pieces; k++)
+                choose[n][k] = n == 0 ? 0 : choose[n - 1][k - 1] + choose[n - 1][k];
+        }
+        return choose;
+    }
+
+    // Where the boards with each number of pieces start, entry pieces + 1 being the end
+    private static long[] sections(long[][] choose, int squares, int pieces)
+    {
+        long[] start = new long[pieces + 2];
+        for(int count = 1; count <= pieces; count++)
+            start[count + 1] = start[count] + choose[squares][count] * power(count);
+        return start;
+    }
+}
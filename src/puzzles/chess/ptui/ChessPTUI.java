@@ -1,5 +1,6 @@
 package puzzles.chess.ptui;
 
+import puzzles.common.BoardUpdate;
 import puzzles.common.Observer;
 import puzzles.chess.model.ChessModel;
 
@@ -7,7 +8,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Scanner;
 
-public class ChessPTUI implements Observer<ChessModel, String> {
+public class ChessPTUI implements Observer<ChessModel, BoardUpdate> {
     private ChessModel model;
 
     public void init(String filename) throws IOException {
@@ -17,11 +18,11 @@ public class ChessPTUI implements Observer<ChessModel, String> {
     }
 
     @Override
-    public void update(ChessModel model, String data) {
+    public void update(ChessModel model, BoardUpdate data) {
         //if ( !this.initialized ) return;
 
         //Print the message
-        System.out.println(data);
+        System.out.println(data.message());
         System.out.println(model);
     }
 
@@ -1,15 +1,22 @@
 package puzzles.clock;
 
+import puzzles.common.solver.BidirectionalSolver;
 import puzzles.common.solver.Solver;
 
 public class Clock {
     public static void main(String[] args) {
         if (args.length < 2) {
-            System.out.println(("Usage: java Clock hours stop end"));
+            System.out.println(("Usage: java Clock hours stop end [-b]"));
         } else {
             System.out.printf("Hours: %s, Start: %s, End: %s %n", args[0], args[1], args[2]);
             ClockConfig clockConfig = new ClockConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
-            Solver.PrintBFSSolution(clockConfig);
+            //-b searches from both ends at once
+            if(args.length > 3 && args[3].equals("-b")) {
+                BidirectionalSolver.PrintBidirectionalSolution(clockConfig);
+            }
+            else {
+                Solver.PrintBFSSolution(clockConfig);
+            }
         }
     }
 }
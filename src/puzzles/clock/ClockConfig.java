@@ -1,54 +1,74 @@
 package puzzles.clock;
 
+import puzzles.common.solver.BidirectionalConfiguration;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.KeyedConfiguration;
 
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.function.Consumer;
 
-public class ClockConfig implements Configuration {
+public class ClockConfig implements KeyedConfiguration, BidirectionalConfiguration {
     //The minimum hour (1)
     private final static int MIN_HOUR = 1;
-    //The max hour specified by input
-    private static int MAX_HOUR;
-    //The solution hour
-    private static int END_HOUR;
+
+    //The max hour specified by input and the solution hour, shared by every config of the same puzzle
+    private record Dial(int maxHour, int endHour) {}
+
+    //The puzzle this config belongs to
+    private final Dial dial;
     //The hour held by this config
-    private int hour;
+    private final int hour;
 
     //Constructor used once to create the starting clock config and sets the max and end hours
     public ClockConfig(int numHours, int current, int end)
     {
-        MAX_HOUR = numHours;
-        this.hour = current;
-        END_HOUR = end;
+        this(new Dial(numHours, end), current);
     }
-    //Overloaded constructor used for creating neighbors, just setting its current hour
-    public ClockConfig(int current)
+    //Constructor used for creating neighbors, just setting its current hour on the same dial
+    private ClockConfig(Dial dial, int current)
     {
+        this.dial = dial;
         hour = current;
     }
     @Override
     public boolean isSolution() {
-        return hour == END_HOUR;
+        return hour == dial.endHour();
     }
 
     @Override
     public Collection<Configuration> getNeighbors() {
-        //Generates two neighbors in this order(+1, -1)
         Collection<Configuration> neighbors = new LinkedList<>();
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    @Override
+    public void forEachNeighbor(Consumer<? super Configuration> action) {
+        //Generates two neighbors in this order(+1, -1)
         int neighHour = hour + 1;
         //Generating the neighbor an hour ahead but wrapping around the clock if it is past the max
-        if(neighHour > MAX_HOUR) {
+        if(neighHour > dial.maxHour()) {
             neighHour = MIN_HOUR;
         }
-        neighbors.add(new ClockConfig(neighHour));
+        action.accept(new ClockConfig(dial, neighHour));
         //Generating the neighbor an hour behind and doing the same wrap around
         neighHour = hour - 1;
         if(neighHour < MIN_HOUR) {
-            neighHour = MAX_HOUR;
+            neighHour = dial.maxHour();
         }
-        neighbors.add(new ClockConfig(neighHour));
-        return neighbors;
+        action.accept(new ClockConfig(dial, neighHour));
+    }
+
+    @Override
+    public ClockConfig getGoal() {
+        return new ClockConfig(dial, dial.endHour());
+    }
+
+    @Override
+    public Collection<Configuration> getPredecessors() {
+        //Turning the clock either way can be undone by turning it back
+        return getNeighbors();
     }
 
     @Override
@@ -58,6 +78,22 @@ public class ClockConfig implements Configuration {
         return false;
     }
 
+    //The key is just the hour
+    @Override
+    public int getKeyLength() {
+        return 1;
+    }
+
+    @Override
+    public void writeKey(long[] dest, int offset) {
+        dest[offset] = hour;
+    }
+
+    @Override
+    public ClockConfig fromKey(long[] src, int offset) {
+        return new ClockConfig(dial, (int) src[offset]);
+    }
+
     @Override
     public int hashCode() {
         return hour;
@@ -0,0 +1,244 @@
+package puzzles.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads and writes the boards of the grid puzzles, in either of two formats.
+ * <p>
+ * The text format is a line with the number of rows and columns, then a line per
+ * row with a character for each cell, separated by spaces. Only the first character
+ * of each cell is used and anything after the last column of a line is ignored.
+ * <p>
+ * The binary format, for large sets of puzzles, starts with the magic number and the
+ * rows and columns as shorts, then the number of different cell characters and the
+ * characters themselves as bytes. Each cell is then stored as the index of its
+ * character in as few bits as hold them all, row by row, the low bits of each byte first,
+ * so a board takes at most 3 bits a cell for chess and 2 for hoppers.
+ * <p>
+ * Files are parsed straight from the bytes of a FileChannel, mapped if they are large,
+ * so the only thing read allocates is the board it returns. Which characters a board
+ * may hold is left to each puzzle's config to check.
+ */
+public final class BoardFile {
+    /** The extension the converter gives binary boards */
+    public static final String BINARY_EXTENSION = ".pzb";
+    /** "PZB1", which no text board can start with */
+    private static final int MAGIC = 0x505A4231;
+    /** Files this big are mapped rather than read */
+    private static final int MAP_BYTES = 1 << 20;
+    /** Each thread reads small files into the same buffer */
+    private static final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(4096));
+
+    private BoardFile() {
+    }
+
+    /**
+     * Reads a board, in either format
+     * @param filename the name of the file
+     * @return the cells, indexed [row][col]
+     * @throws IOException if the file cannot be read or is not a board
+     */
+    public static char[][] read(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer in;
+            if (size >= MAP_BYTES) {
+                in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            else {
+                in = buffers.get();
+                if (in.capacity() < size) {
+                    in = ByteBuffer.allocate(Integer.highestOneBit((int) size) << 1);
+                    buffers.set(in);
+                }
+                in.clear().limit((int) size);
+                while (in.hasRemaining() && channel.read(in) >= 0) {
+                    // keep reading until the buffer is full
+                }
+                in.flip();
+            }
+            try {
+                return in.remaining() >= 4 && in.getInt(0) == MAGIC ? readBinary(in) : readText(in);
+            }
+            catch (RuntimeException e) {
+                throw new IOException(filename + " is not a board", e);
+            }
+        }
+    }
+
+    // Parses the text format
+    private static char[][] readText(ByteBuffer in) throws IOException {
+        int rows = readInt(in);
+        int cols = readInt(in);
+        skipLine(in);
+        char[][] cells = new char[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                //The first character of the cell, then the rest of it
+                byte first = skipSpaces(in);
+                if (first == '\n') {
+                    throw new IOException("Row " + i + " has " + j + " of " + cols + " cells");
+                }
+                cells[i][j] = (char) (first & 0xFF);
+                while (in.hasRemaining() && !isSpace(in.get(in.position()))) {
+                    in.get();
+                }
+            }
+            skipLine(in);
+        }
+        return cells;
+    }
+
+    // Reads a non-negative number from the current line
+    private static int readInt(ByteBuffer in) throws IOException {
+        byte b = skipSpaces(in);
+        if (b < '0' || b > '9') {
+            throw new IOException("Expected the number of rows and columns");
+        }
+        int value = 0;
+        while (b >= '0' && b <= '9') {
+            value = value * 10 + (b - '0');
+            in.get();
+            b = in.hasRemaining() ? in.get(in.position()) : (byte) '\n';
+        }
+        return value;
+    }
+
+    // Skips spaces on the current line and peeks at the next byte, a newline at the end of the line or file
+    private static byte skipSpaces(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            byte b = in.get(in.position());
+            if (b == '\n' || !isSpace(b)) {
+                return b;
+            }
+            in.get();
+        }
+        return '\n';
+    }
+
+    // Skips past the end of the current line
+    private static void skipLine(ByteBuffer in) {
+        while (in.hasRemaining() && in.get() != '\n') {
+            // skip
+        }
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '\f' || b == 0x0B;
+    }
+
+    // Parses the binary format
+    private static char[][] readBinary(ByteBuffer in) {
+        in.position(4);
+        int rows = Short.toUnsignedInt(in.getShort());
+        int cols = Short.toUnsignedInt(in.getShort());
+        int symbolCount = Byte.toUnsignedInt(in.get());
+        int symbols = in.position();
+        in.position(symbols + symbolCount);
+        int bits = bitsPerCell(symbolCount);
+        int mask = (1 << bits) - 1;
+        char[][] cells = new char[rows][cols];
+        int buffered = 0, count = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (count < bits) {
+                    buffered |= Byte.toUnsignedInt(in.get()) << count;
+                    count += 8;
+                }
+                cells[i][j] = (char) Byte.toUnsignedInt(in.get(symbols + (buffered & mask)));
+                buffered >>>= bits;
+                count -= bits;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Writes a board in the binary format
+     * @param cells the cells, indexed [row][col]
+     * @param file where to write it
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if a cell is not a single byte or the board is too big or too varied
+     */
+    public static void writeBinary(char[][] cells, Path file) throws IOException {
+        int rows = cells.length;
+        int cols = rows == 0 ? 0 : cells[0].length;
+        if (rows > 0xFFFF || cols > 0xFFFF) {
+            throw new IllegalArgumentException("Boards can have at most 65535 rows and columns");
+        }
+        //The characters in the order they first appear
+        char[] symbols = new char[256];
+        int symbolCount = 0;
+        int[] index = new int[256];
+        Arrays.fill(index, -1);
+        for (char[] row : cells) {
+            for (char cell : row) {
+                if (cell > 0xFF) {
+                    throw new IllegalArgumentException("Cell '" + cell + "' is not a single byte");
+                }
+                if (index[cell] < 0) {
+                    if (symbolCount == 0xFF) {
+                        throw new IllegalArgumentException("Boards can have at most 255 different cells");
+                    }
+                    index[cell] = symbolCount;
+                    symbols[symbolCount++] = cell;
+                }
+            }
+        }
+        int bits = bitsPerCell(symbolCount);
+        ByteBuffer out = ByteBuffer.allocate(9 + symbolCount + (int) (((long) rows * cols * bits + 7) / 8));
+        out.putInt(MAGIC).putShort((short) rows).putShort((short) cols).put((byte) symbolCount);
+        for (int i = 0; i < symbolCount; i++) {
+            out.put((byte) symbols[i]);
+        }
+        int buffered = 0, count = 0;
+        for (char[] row : cells) {
+            for (char cell : row) {
+                buffered |= index[cell] << count;
+                count += bits;
+                if (count >= 8) {
+                    out.put((byte) buffered);
+                    buffered >>>= 8;
+                    count -= 8;
+                }
+            }
+        }
+        if (count > 0) {
+            out.put((byte) buffered);
+        }
+        Files.write(file, out.array());
+    }
+
+    /**
+     * Writes a board in the text format
+     * @param cells the cells, indexed [row][col]
+     * @param file where to write it
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeText(char[][] cells, Path file) throws IOException {
+        StringBuilder text = new StringBuilder();
+        text.append(cells.length).append(' ').append(cells.length == 0 ? 0 : cells[0].length).append('\n');
+        for (char[] row : cells) {
+            for (int j = 0; j < row.length; j++) {
+                if (j > 0) {
+                    text.append(' ');
+                }
+                text.append(row[j]);
+            }
+            text.append('\n');
+        }
+        Files.writeString(file, text, StandardCharsets.ISO_8859_1);
+    }
+
+    // The fewest bits that number every character, at least one
+    private static int bitsPerCell(int symbolCount) {
+        return symbolCount <= 2 ? 1 : 32 - Integer.numberOfLeadingZeros(symbolCount - 1);
+    }
+}
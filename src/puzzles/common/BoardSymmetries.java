@@ -0,0 +1,46 @@
+package puzzles.common;
+
+/**
+ * The reflections and rotations of a rectangular grid, for puzzles whose rules
+ * look the same after turning or flipping the board. Each symmetry is given as a
+ * map of squares, numbered row * cols + col: entry i is the square whose contents
+ * end up on square i.
+ * <ul>
+ *     <li>0: the identity</li>
+ *     <li>1: mirrored left to right</li>
+ *     <li>2: mirrored top to bottom</li>
+ *     <li>3: turned half way around</li>
+ *     <li>4-7, square boards only: the two diagonal mirrors and the two quarter turns</li>
+ * </ul>
+ */
+public final class BoardSymmetries {
+    private BoardSymmetries() {
+    }
+
+    /**
+     * Builds the square maps of every symmetry of a board of the given size.
+     * @param rows number of rows
+     * @param cols number of columns
+     * @return 8 maps for a square board, 4 otherwise, in the order listed above
+     */
+    public static int[][] squareMaps(int rows, int cols) {
+        int count = rows == cols ? 8 : 4;
+        int[][] maps = new int[count][rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int square = r * cols + c;
+                maps[0][square] = square;
+                maps[1][square] = r * cols + (cols - 1 - c);
+                maps[2][square] = (rows - 1 - r) * cols + c;
+                maps[3][square] = (rows - 1 - r) * cols + (cols - 1 - c);
+                if (count == 8) {
+                    maps[4][square] = c * cols + r;
+                    maps[5][square] = (cols - 1 - c) * cols + (rows - 1 - r);
+                    maps[6][square] = (cols - 1 - c) * cols + r;
+                    maps[7][square] = c * cols + (rows - 1 - r);
+                }
+            }
+        }
+        return maps;
+    }
+}
@@ -0,0 +1,53 @@
+package puzzles.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a puzzle model tells its observers after a change: the status message
+ * and which cells of the board are different from the last update. A view can
+ * build its board once when a new board is loaded and after that only redraw
+ * the changed cells.
+ *
+ * @param message the status message to show
+ * @param newBoard true when a board was loaded, so the view should rebuild
+ *                 everything as the size may have changed too
+ * @param changed the cells that changed since the last update, in row-major
+ *                order, empty when nothing changed or when newBoard is true
+ */
+public record BoardUpdate(String message, boolean newBoard, List<Coordinates> changed) {
+
+    /**
+     * Compares the board the observers last saw with the current one
+     * @param message the status message to show
+     * @param before the board as of the last update, null if a board was just loaded
+     * @param after the current board
+     * @return an update with the cells that differ, or a new board update if
+     *         before is null or a different size
+     */
+    public static BoardUpdate between(String message, char[][] before, char[][] after) {
+        if (before == null || before.length != after.length
+                || (before.length > 0 && before[0].length != after[0].length)) {
+            return new BoardUpdate(message, true, Collections.emptyList());
+        }
+        List<Coordinates> changed = new ArrayList<>();
+        for (int row = 0; row < after.length; row++) {
+            for (int col = 0; col < after[row].length; col++) {
+                if (before[row][col] != after[row][col]) {
+                    changed.add(new Coordinates(row, col));
+                }
+            }
+        }
+        return new BoardUpdate(message, false, Collections.unmodifiableList(changed));
+    }
+
+    /**
+     * The status message, so text views can print the update directly
+     * @return the message
+     */
+    @Override
+    public String toString() {
+        return message;
+    }
+}
@@ -0,0 +1,21 @@
+package puzzles.common.solver;
+
+import java.util.Collection;
+
+/**
+ * A configuration whose puzzle has a single known goal and whose moves can be
+ * followed backwards, so it can be searched from both ends at once.
+ */
+public interface BidirectionalConfiguration extends Configuration {
+    /**
+     * Gets the one configuration that is a solution to this puzzle.
+     * @return the goal configuration
+     */
+    BidirectionalConfiguration getGoal();
+
+    /**
+     * Gets every configuration that has this one as a neighbor.
+     * @return the configurations one move before this one
+     */
+    Collection<Configuration> getPredecessors();
+}
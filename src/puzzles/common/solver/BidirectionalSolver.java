@@ -0,0 +1,105 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A breadth first search that runs forward from the start and backward from the
+ * goal, a whole level at a time, always growing the smaller of the two frontiers.
+ * Once a level reaches configurations the other side has seen, the closest of those
+ * meetings is used to stitch the two predecessor chains into one shortest path.
+ */
+public class BidirectionalSolver {
+    /** What one side of the search knows about a configuration it has reached */
+    private record Visit(Configuration next, int depth) {}
+
+    /**
+     * Solves by searching from both ends
+     * Prints the number of configurations created and the number of unique configurations
+     * @param start the starting configuration
+     * @return List of the path from the start to the goal, null if there is none
+     */
+    public static LinkedList<Configuration> BidirectionalBFSSolver(BidirectionalConfiguration start)
+    {
+        int configCount = 0;
+        int unique = 0;
+        //Forward map points at the predecessor, backward map points toward the goal
+        HashMap<Configuration, Visit> forward = new HashMap<>();
+        HashMap<Configuration, Visit> backward = new HashMap<>();
+        List<Configuration> forwardLevel = new ArrayList<>();
+        List<Configuration> backwardLevel = new ArrayList<>();
+        forward.put(start, new Visit(null, 0));
+        forwardLevel.add(start);
+        Configuration goal = start.getGoal();
+        backward.put(goal, new Visit(null, 0));
+        backwardLevel.add(goal);
+
+        Configuration meeting = start.isSolution() ? start : null;
+        while(meeting == null && !forwardLevel.isEmpty() && !backwardLevel.isEmpty())
+        {
+            //Grow the smaller side by one level
+            boolean growForward = forwardLevel.size() <= backwardLevel.size();
+            HashMap<Configuration, Visit> seen = growForward ? forward : backward;
+            HashMap<Configuration, Visit> other = growForward ? backward : forward;
+            List<Configuration> level = growForward ? forwardLevel : backwardLevel;
+            List<Configuration> nextLevel = new ArrayList<>();
+            int bestLength = Integer.MAX_VALUE;
+
+            for(Configuration curr : level)
+            {
+                int depth = seen.get(curr).depth() + 1;
+                for(Configuration neighbor : growForward ? curr.getNeighbors() :
+                        ((BidirectionalConfiguration) curr).getPredecessors())
+                {
+                    configCount++;
+                    if(!seen.containsKey(neighbor))
+                    {
+                        unique++;
+                        seen.put(neighbor, new Visit(curr, depth));
+                        nextLevel.add(neighbor);
+                        //Keep the meeting with the shortest total path in this level
+                        Visit met = other.get(neighbor);
+                        if(met != null && depth + met.depth() < bestLength)
+                        {
+                            bestLength = depth + met.depth();
+                            meeting = neighbor;
+                        }
+                    }
+                }
+            }
+            if(growForward) {
+                forwardLevel = nextLevel;
+            }
+            else {
+                backwardLevel = nextLevel;
+            }
+        }
+        //Printing the configuration counts
+        System.out.println("Total configs: " + configCount);
+        System.out.println("Unique configs: " + unique);
+        if(meeting == null) {
+            return null;
+        }
+        //Stitching the forward chain to the backward chain at the meeting point
+        LinkedList<Configuration> path = new LinkedList<>();
+        for(Configuration prev = meeting; prev != null; prev = forward.get(prev).next()) {
+            path.addFirst(prev);
+        }
+        Visit toGoal = backward.get(meeting);
+        for(Configuration next = toGoal == null ? null : toGoal.next(); next != null; next = backward.get(next).next()) {
+            path.addLast(next);
+        }
+        return path;
+    }
+
+    /**
+     * Calls the bidirectional solver and prints the solution
+     * @param start the starting configuration
+     */
+    public static void PrintBidirectionalSolution(BidirectionalConfiguration start)
+    {
+        Solver.PrintPath(BidirectionalBFSSolver(start));
+    }
+}
@@ -1,10 +1,59 @@
 package puzzles.common.solver;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface Configuration {
     boolean isSolution();
     Collection<Configuration> getNeighbors();
+
+    /**
+     * Hands each neighbor to the action in the same order getNeighbors lists them,
+     * without building a collection. Configurations override this to generate their
+     * neighbors straight into the action; the solvers expand through it.
+     * @param action what to do with each neighbor
+     */
+    default void forEachNeighbor(Consumer<? super Configuration> action) {
+        for (Configuration neighbor : getNeighbors()) {
+            action.accept(neighbor);
+        }
+    }
+
+    /**
+     * Checks cheaply whether this configuration can never lead to a solution, so the
+     * solvers can drop it without searching past it. It has to be sure: a configuration
+     * that might still be solved, or is a solution, must never be called dead. The
+     * default knows nothing and calls nothing dead.
+     * @return true only if no solution can be reached from here
+     */
+    default boolean isDead() {
+        return false;
+    }
+
+    /**
+     * Gets the representative of this configuration's symmetry class, such as the
+     * least of its mirror images and rotations. Symmetric configurations must have
+     * the same representative, and the puzzle's moves and solutions must look the
+     * same from each of them. The BFS solver searches over representatives only and
+     * rebuilds the real path afterwards. Configurations without symmetries keep the
+     * default, which is the configuration itself.
+     * @return the canonical configuration, this if it already is one
+     */
+    default Configuration getCanonical() {
+        return this;
+    }
+
+    /**
+     * Describes the move that leads to this configuration, for printing solutions
+     * compactly. Board puzzles override this to give the source and destination
+     * squares; the default is the whole configuration.
+     * @param previous the configuration the move was made from
+     * @return a short description of the move
+     */
+    default String describeMove(Configuration previous) {
+        return toString();
+    }
+
     boolean equals(Object other);
     int hashCode();
     String toString();
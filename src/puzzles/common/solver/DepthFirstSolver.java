@@ -0,0 +1,102 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A backtracking depth first search for puzzles where every solution is the same
+ * length. Instead of keeping whole levels like the BFS solver it keeps the current
+ * path and a bounded cache of configurations already known to be dead ends, so
+ * memory grows with the depth and the cache size, not with the width of the search.
+ */
+public class DepthFirstSolver {
+    /** The number of dead ends remembered when no size is given */
+    public static final int DEFAULT_CACHE_SIZE = 1 << 20;
+
+    /**
+     * Solves using a depth first search with the default dead end cache
+     * Prints the number of configurations created and the number of unique configurations
+     * @param start the starting configuration
+     * @return List of the path from the start to the end, null if there is none
+     */
+    public static LinkedList<Configuration> DFSSolver(FixedDepthConfiguration start)
+    {
+        return DFSSolver(start, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Solves using a depth first search
+     * Prints the number of configurations created and the number of unique configurations,
+     * which for this solver is the number that were searched rather than found in the cache
+     * @param start the starting configuration
+     * @param cacheSize the most dead ends to remember, the least recently used are forgotten first
+     * @return List of the path from the start to the end, null if there is none
+     */
+    public static LinkedList<Configuration> DFSSolver(FixedDepthConfiguration start, int cacheSize)
+    {
+        DepthFirstSearch search = new DepthFirstSearch(cacheSize);
+        search.path.add(start);
+        boolean found = search.search(start);
+        //Printing the configuration counts
+        System.out.println("Total configs: " + search.configCount);
+        System.out.println("Unique configs: " + search.unique);
+        return found ? new LinkedList<>(search.path) : null;
+    }
+
+    /**
+     * Calls the depth first solver and prints the solution
+     * @param start the starting configuration
+     */
+    public static void PrintDFSSolution(FixedDepthConfiguration start)
+    {
+        Solver.PrintPath(DFSSolver(start));
+    }
+
+    /** The state of one depth first run */
+    private static class DepthFirstSearch {
+        private final List<Configuration> path = new ArrayList<>();
+        /** Dead ends in least recently used order */
+        private final Map<Configuration, Boolean> dead;
+        private long configCount;
+        private long unique;
+
+        DepthFirstSearch(int cacheSize) {
+            this.dead = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Configuration, Boolean> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+        }
+
+        // Searches from the end of the path, true if it reached a solution
+        boolean search(Configuration curr)
+        {
+            if(curr.isSolution()) {
+                return true;
+            }
+            //Out of moves without solving it, or it can never be solved
+            if(((FixedDepthConfiguration) curr).getMovesLeft() <= 0 || curr.isDead()) {
+                return false;
+            }
+            for(Configuration neighbor : curr.getNeighbors())
+            {
+                configCount++;
+                if(dead.get(neighbor) == null)
+                {
+                    unique++;
+                    path.add(neighbor);
+                    if(search(neighbor)) {
+                        return true;
+                    }
+                    path.remove(path.size() - 1);
+                    dead.put(neighbor, Boolean.TRUE);
+                }
+            }
+            return false;
+        }
+    }
+}
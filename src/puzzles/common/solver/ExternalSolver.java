@@ -0,0 +1,374 @@
+package puzzles.common.solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * A breadth first search that keeps its levels on disk instead of the heap, for
+ * puzzles whose visited set does not fit in memory.
+ * <ul>
+ *     <li>Each level is a file of canonical keys in sorted order.</li>
+ *     <li>Expanding a level fills a fixed size buffer with neighbor keys. Every time
+ *     it fills up it is sorted, cleared of repeats and written out as a run.</li>
+ *     <li>The runs are merged, and the merge drops every key already in the file of
+ *     all earlier levels, which is what is left of the next level.</li>
+ *     <li>Once a solution is found, the path is rebuilt by searching the level before
+ *     for a configuration with the current one as a neighbor, back to the start.</li>
+ * </ul>
+ * The heap used is the buffer plus one key per run being merged, whatever the
+ * size of the puzzle. The path is a shortest one, but it may not be the one
+ * BFSSolver finds.
+ */
+public class ExternalSolver {
+    /** The part of the heap the key buffer gets when no size is given */
+    private static final int DEFAULT_HEAP_FRACTION = 4;
+
+    /**
+     * Solves with the disk based search, using a quarter of the heap for its buffer
+     * Prints the number of configurations created and the number of unique configurations
+     * @param start the starting configuration
+     * @return List of the path from the start to the end, null if there is none
+     */
+    public static LinkedList<Configuration> ExternalBFSSolver(KeyedConfiguration start)
+    {
+        return ExternalBFSSolver(start, Runtime.getRuntime().maxMemory() / DEFAULT_HEAP_FRACTION);
+    }
+
+    /**
+     * Solves with the disk based search, keeping its files in a temporary directory that is
+     * deleted afterwards
+     * Prints the number of configurations created and the number of unique configurations
+     * @param start the starting configuration
+     * @param bufferBytes the heap to spend on sorting neighbor keys
+     * @return List of the path from the start to the end, null if there is none
+     */
+    public static LinkedList<Configuration> ExternalBFSSolver(KeyedConfiguration start, long bufferBytes)
+    {
+        try {
+            Path directory = Files.createTempDirectory("bfs-levels");
+            try {
+                return ExternalBFSSolver(start, bufferBytes, directory);
+            }
+            finally {
+                try (var files = Files.list(directory)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(directory);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Solves with the disk based search
+     * Prints the number of configurations created and the number of unique configurations
+     * @param start the starting configuration
+     * @param bufferBytes the heap to spend on sorting neighbor keys
+     * @param directory where the level files go, they are left there
+     * @return List of the path from the start to the end, null if there is none
+     * @throws IOException if the files cannot be written or read
+     */
+    public static LinkedList<Configuration> ExternalBFSSolver(KeyedConfiguration start, long bufferBytes, Path directory)
+            throws IOException
+    {
+        LevelSearch search = new LevelSearch(start, bufferBytes, directory);
+        LinkedList<Configuration> path = search.run();
+        //Printing the configuration counts
+        System.out.println("Total configs: " + search.configCount);
+        System.out.println("Unique configs: " + search.unique);
+        return path;
+    }
+
+    /**
+     * Calls the disk based solver and prints the solution
+     * @param start the starting configuration
+     */
+    public static void PrintExternalBFSSolution(KeyedConfiguration start)
+    {
+        Solver.PrintPath(ExternalBFSSolver(start));
+    }
+
+    /** The state of one disk based run */
+    private static class LevelSearch {
+        private final KeyedConfiguration start;
+        private final Path directory;
+        private final int width;
+        /** neighbor keys waiting to be sorted, width longs each */
+        private final long[] buffer;
+        /** the order to write the buffer's keys in, and scratch space for sorting it */
+        private final int[] order;
+        private final int[] scratch;
+        private int buffered;
+        private final List<Path> runs = new ArrayList<>();
+        private long configCount;
+        private long unique;
+
+        LevelSearch(KeyedConfiguration start, long bufferBytes, Path directory) {
+            this.start = start;
+            this.directory = directory;
+            this.width = start.getKeyLength();
+            //Each buffered key takes its longs and two ints for sorting
+            long perKey = (long) width * Long.BYTES + 2L * Integer.BYTES;
+            int capacity = (int) Math.max(1024, Math.min(bufferBytes / perKey, Integer.MAX_VALUE / width));
+            this.buffer = new long[capacity * width];
+            this.order = new int[capacity];
+            this.scratch = new int[capacity];
+        }
+
+        private Path level(int depth) {
+            return directory.resolve("level-" + depth);
+        }
+
+        private Path visited(int depth) {
+            return directory.resolve("visited-" + depth);
+        }
+
+        // Searches level by level, returning the path once a level holds a solution
+        LinkedList<Configuration> run() throws IOException {
+            //No level files are written for a start that can never be solved
+            if (start.getCanonical().isDead()) {
+                return null;
+            }
+            long[] key = new long[width];
+            writeKey(start.getCanonical(), key, 0);
+            try (KeyFile.Writer first = new KeyFile.Writer(level(0), width);
+                 KeyFile.Writer seen = new KeyFile.Writer(visited(0), width)) {
+                first.write(key, 0);
+                seen.write(key, 0);
+            }
+            for (int depth = 0; ; depth++)
+            {
+                KeyedConfiguration solution = expand(depth);
+                if (solution != null) {
+                    return Solver.UnfoldPath(start, backtrack(solution, depth));
+                }
+                long next = mergeLevel(depth);
+                Files.deleteIfExists(visited(depth));
+                if (next == 0) {
+                    return null;
+                }
+            }
+        }
+
+        // Writes a canonical configuration's key, clearing the slot first as keys can get shorter
+        private void writeKey(Configuration canonical, long[] dest, int offset) {
+            Arrays.fill(dest, offset, offset + width, 0);
+            ((KeyedConfiguration) canonical).writeKey(dest, offset);
+        }
+
+        // Expands a level into sorted runs, returning the first solution in it instead if there is one
+        private KeyedConfiguration expand(int depth) throws IOException {
+            long[] key = new long[width];
+            Consumer<Configuration> collect = neighbor -> {
+                configCount++;
+                //Dead configurations are kept too, so they count as visited like in BFSSolver
+                Configuration canonical = neighbor.getCanonical();
+                if (buffered * width == buffer.length) {
+                    spill();
+                }
+                writeKey(canonical, buffer, buffered * width);
+                buffered++;
+            };
+            try (KeyFile.Reader level = new KeyFile.Reader(level(depth), width)) {
+                while (level.next(key, 0))
+                {
+                    KeyedConfiguration curr = start.fromKey(key, 0);
+                    if (curr.isSolution()) {
+                        buffered = 0;
+                        deleteRuns();
+                        return curr;
+                    }
+                    curr.forEachNeighbor(collect);
+                }
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            spill();
+            return null;
+        }
+
+        // Sorts the buffered keys and writes them out as a run, once each
+        private void spill() {
+            if (buffered == 0) {
+                return;
+            }
+            for (int i = 0; i < buffered; i++) {
+                order[i] = i;
+            }
+            sort(0, buffered);
+            Path run = directory.resolve("run-" + runs.size());
+            try (KeyFile.Writer out = new KeyFile.Writer(run, width)) {
+                int last = -1;
+                for (int i = 0; i < buffered; i++) {
+                    int key = order[i] * width;
+                    if (last < 0 || KeyFile.compare(buffer, last, buffer, key, width) != 0) {
+                        out.write(buffer, key);
+                        last = key;
+                    }
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            runs.add(run);
+            buffered = 0;
+        }
+
+        // Merge sorts order[from, to) by the keys they point at
+        private void sort(int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            sort(from, mid);
+            sort(mid, to);
+            System.arraycopy(order, from, scratch, from, to - from);
+            int left = from, right = mid;
+            for (int i = from; i < to; i++) {
+                if (right >= to || left < mid
+                        && KeyFile.compare(buffer, scratch[left] * width, buffer, scratch[right] * width, width) <= 0) {
+                    order[i] = scratch[left++];
+                }
+                else {
+                    order[i] = scratch[right++];
+                }
+            }
+        }
+
+        /**
+         * Merges the runs into the next level, leaving out keys from earlier levels, and
+         * writes the visited file for the next level at the same time. New keys all count
+         * as unique and are visited, but the ones that can never be solved are left out of
+         * the next level.
+         * @return the size of the next level
+         */
+        private long mergeLevel(int depth) throws IOException {
+            List<RunCursor> cursors = new ArrayList<>();
+            PriorityQueue<RunCursor> heap = new PriorityQueue<>(
+                    (a, b) -> KeyFile.compare(a.key, 0, b.key, 0, width));
+            long[] seenKey = new long[width];
+            try (KeyFile.Reader seen = new KeyFile.Reader(visited(depth), width);
+                 KeyFile.Writer next = new KeyFile.Writer(level(depth + 1), width);
+                 KeyFile.Writer nextSeen = new KeyFile.Writer(visited(depth + 1), width)) {
+                for (Path run : runs) {
+                    RunCursor cursor = new RunCursor(new KeyFile.Reader(run, width), width);
+                    cursors.add(cursor);
+                    if (cursor.advance()) {
+                        heap.add(cursor);
+                    }
+                }
+                boolean moreSeen = seen.next(seenKey, 0);
+                long[] last = null;
+                while (!heap.isEmpty())
+                {
+                    RunCursor smallest = heap.poll();
+                    long[] key = smallest.key.clone();
+                    if (smallest.advance()) {
+                        heap.add(smallest);
+                    }
+                    //The same key can come from several runs
+                    if (last != null && KeyFile.compare(last, 0, key, 0, width) == 0) {
+                        continue;
+                    }
+                    last = key;
+                    //Copy over the visited keys that come first
+                    int diff = 1;
+                    while (moreSeen && (diff = KeyFile.compare(seenKey, 0, key, 0, width)) < 0) {
+                        nextSeen.write(seenKey, 0);
+                        moreSeen = seen.next(seenKey, 0);
+                    }
+                    if (!moreSeen || diff != 0) {
+                        unique++;
+                        if (!start.fromKey(key, 0).isDead()) {
+                            next.write(key, 0);
+                        }
+                    }
+                    nextSeen.write(key, 0);
+                    if (moreSeen && diff == 0) {
+                        moreSeen = seen.next(seenKey, 0);
+                    }
+                }
+                while (moreSeen) {
+                    nextSeen.write(seenKey, 0);
+                    moreSeen = seen.next(seenKey, 0);
+                }
+                return next.count();
+            }
+            finally {
+                for (RunCursor cursor : cursors) {
+                    cursor.reader.close();
+                }
+                deleteRuns();
+            }
+        }
+
+        private void deleteRuns() throws IOException {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            runs.clear();
+        }
+
+        /**
+         * Walks back from a solution, finding at each level a configuration that has
+         * the current one as a neighbor
+         * @return the path over canonical configurations
+         */
+        private LinkedList<Configuration> backtrack(KeyedConfiguration solution, int depth) throws IOException {
+            LinkedList<Configuration> path = new LinkedList<>();
+            path.addFirst(solution);
+            long[] target = new long[width];
+            long[] neighborKey = new long[width];
+            long[] key = new long[width];
+            for (int d = depth - 1; d >= 0; d--)
+            {
+                writeKey(path.getFirst().getCanonical(), target, 0);
+                KeyedConfiguration parent = null;
+                try (KeyFile.Reader level = new KeyFile.Reader(level(d), width)) {
+                    while (parent == null && level.next(key, 0))
+                    {
+                        KeyedConfiguration curr = start.fromKey(key, 0);
+                        for (Configuration neighbor : curr.getNeighbors()) {
+                            writeKey(neighbor.getCanonical(), neighborKey, 0);
+                            if (KeyFile.compare(neighborKey, 0, target, 0, width) == 0) {
+                                parent = curr;
+                                break;
+                            }
+                        }
+                    }
+                }
+                path.addFirst(parent);
+            }
+            return path;
+        }
+    }
+
+    /** A run being merged and the key it is up to */
+    private static class RunCursor {
+        private final KeyFile.Reader reader;
+        private final long[] key;
+
+        RunCursor(KeyFile.Reader reader, int width) {
+            this.reader = reader;
+            this.key = new long[width];
+        }
+
+        // Moves to the next key, false at the end of the run
+        boolean advance() throws IOException {
+            return reader.next(key, 0);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration whose solutions, if there are any, are all the same number
+ * of moves away, like puzzles where every move removes exactly one piece.
+ * Any solution such a puzzle finds is a shortest one, so it can be searched
+ * depth first.
+ */
+public interface FixedDepthConfiguration extends Configuration {
+    /**
+     * Gets how many moves every solution from this configuration takes.
+     * @return the moves left, 0 if this should be a solution
+     */
+    int getMovesLeft();
+}
@@ -0,0 +1,16 @@
+package puzzles.common.solver;
+
+/**
+ * An estimate of how many moves a configuration is from a solution.
+ * To get shortest paths out of the heuristic solvers the estimate must be
+ * admissible, meaning it never overestimates.
+ */
+@FunctionalInterface
+public interface Heuristic {
+    /**
+     * Estimates the number of moves left to a solution.
+     * @param config the configuration to estimate
+     * @return a lower bound on the moves left, 0 for a solution
+     */
+    int estimate(Configuration config);
+}
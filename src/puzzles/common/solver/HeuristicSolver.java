@@ -0,0 +1,187 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Informed searches that use a puzzle's {@link Heuristic} to expand the most
+ * promising configurations first. With an admissible heuristic both return a
+ * shortest path.
+ * <ul>
+ *     <li>A* keeps every configuration it has seen, like the BFS solver does.</li>
+ *     <li>IDA* only keeps the current path, repeating depth first searches with a
+ *     growing bound on the estimated path length.</li>
+ * </ul>
+ */
+public class HeuristicSolver {
+    /** A configuration waiting in the A* queue */
+    private record Node(Configuration config, int cost, int estimate, long order) {}
+
+    /**
+     * Lowest estimated total first. Ties go to the configuration furthest along,
+     * which finds the solution quickly when the heuristic is exact, then to the
+     * one queued first so the result does not depend on hashing.
+     */
+    private static final Comparator<Node> NODE_ORDER = Comparator
+            .comparingInt((Node node) -> node.cost() + node.estimate())
+            .thenComparing(Node::cost, Comparator.reverseOrder())
+            .thenComparingLong(Node::order);
+
+    /**
+     * Solves using A*
+     * Prints the number of configurations created and the number of unique configurations
+     * @param start the starting configuration
+     * @param heuristic an admissible estimate of the moves left
+     * @return List of the path from the start to the end, null if there is none
+     */
+    public static LinkedList<Configuration> AStarSolver(Configuration start, Heuristic heuristic)
+    {
+        int configCount = 0;
+        int unique = 0;
+        long order = 0;
+        //Cheapest known cost to reach each config and the config it was reached from
+        HashMap<Configuration, Integer> costs = new HashMap<>();
+        HashMap<Configuration, Configuration> predmap = new HashMap<>();
+        PriorityQueue<Node> open = new PriorityQueue<>(NODE_ORDER);
+        costs.put(start, 0);
+        predmap.put(start, null);
+        open.offer(new Node(start, 0, heuristic.estimate(start), order++));
+
+        Configuration solution = null;
+        while(!open.isEmpty())
+        {
+            Node curr = open.poll();
+            //Skip entries left behind when a cheaper way to a config was found
+            if(curr.cost() > costs.get(curr.config())) {
+                continue;
+            }
+            if(curr.config().isSolution()) {
+                solution = curr.config();
+                break;
+            }
+            int cost = curr.cost() + 1;
+            for(Configuration neighbor : curr.config().getNeighbors())
+            {
+                configCount++;
+                Integer known = costs.get(neighbor);
+                if(known == null) {
+                    unique++;
+                }
+                if(known == null || cost < known)
+                {
+                    costs.put(neighbor, cost);
+                    predmap.put(neighbor, curr.config());
+                    open.offer(new Node(neighbor, cost, heuristic.estimate(neighbor), order++));
+                }
+            }
+        }
+        //Printing the configuration counts
+        System.out.println("Total configs: " + configCount);
+        System.out.println("Unique configs: " + unique);
+        if(solution == null) {
+            return null;
+        }
+        LinkedList<Configuration> path = new LinkedList<>();
+        for(Configuration prev = solution; prev != null; prev = predmap.get(prev)) {
+            path.addFirst(prev);
+        }
+        return path;
+    }
+
+    /**
+     * Solves using iterative deepening A*, which needs memory only for the current path
+     * Prints the number of configurations created and the number of unique configurations,
+     * which for IDA* is the number that were not already on the path being searched
+     * @param start the starting configuration
+     * @param heuristic an admissible estimate of the moves left
+     * @return List of the path from the start to the end, null if there is none
+     */
+    public static LinkedList<Configuration> IDAStarSolver(Configuration start, Heuristic heuristic)
+    {
+        IDAStarSearch search = new IDAStarSearch(heuristic);
+        search.path.add(start);
+        search.onPath.add(start);
+        int bound = heuristic.estimate(start);
+        boolean found = false;
+        //Each round searches every path whose estimated length is within the bound
+        while(!found && bound != Integer.MAX_VALUE)
+        {
+            search.nextBound = Integer.MAX_VALUE;
+            found = search.search(start, 0, bound);
+            bound = search.nextBound;
+        }
+        //Printing the configuration counts
+        System.out.println("Total configs: " + search.configCount);
+        System.out.println("Unique configs: " + search.unique);
+        return found ? new LinkedList<>(search.path) : null;
+    }
+
+    /** The state of one IDA* run */
+    private static class IDAStarSearch {
+        private final Heuristic heuristic;
+        private final List<Configuration> path = new ArrayList<>();
+        private final HashSet<Configuration> onPath = new HashSet<>();
+        /** the smallest estimate that went over the bound this round */
+        private int nextBound;
+        private long configCount;
+        private long unique;
+
+        IDAStarSearch(Heuristic heuristic) {
+            this.heuristic = heuristic;
+        }
+
+        // Depth first search from the end of the path, true if it reached a solution
+        boolean search(Configuration curr, int cost, int bound)
+        {
+            int estimate = cost + heuristic.estimate(curr);
+            if(estimate > bound) {
+                nextBound = Math.min(nextBound, estimate);
+                return false;
+            }
+            if(curr.isSolution()) {
+                return true;
+            }
+            for(Configuration neighbor : curr.getNeighbors())
+            {
+                configCount++;
+                //Going around a cycle can never be part of a shortest path
+                if(onPath.add(neighbor))
+                {
+                    unique++;
+                    path.add(neighbor);
+                    if(search(neighbor, cost + 1, bound)) {
+                        return true;
+                    }
+                    path.remove(path.size() - 1);
+                    onPath.remove(neighbor);
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Calls the A* solver and prints the solution
+     * @param start the starting configuration
+     * @param heuristic an admissible estimate of the moves left
+     */
+    public static void PrintAStarSolution(Configuration start, Heuristic heuristic)
+    {
+        Solver.PrintPath(AStarSolver(start, heuristic));
+    }
+
+    /**
+     * Calls the IDA* solver and prints the solution
+     * @param start the starting configuration
+     * @param heuristic an admissible estimate of the moves left
+     */
+    public static void PrintIDAStarSolution(Configuration start, Heuristic heuristic)
+    {
+        Solver.PrintPath(IDAStarSolver(start, heuristic));
+    }
+}
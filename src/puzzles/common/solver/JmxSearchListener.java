@@ -0,0 +1,160 @@
+package puzzles.common.solver;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the solver's searches over JMX. Turned on by running with
+ * -Dpuzzles.solver.jmx=true, after which every breadth first search from
+ * {@link Solver} reports here as well as to any listener it was given.
+ */
+public class JmxSearchListener implements SearchListener, SearchMetricsMXBean {
+    /** the system property that turns the bean on */
+    public static final String ENABLE_PROPERTY = "puzzles.solver.jmx";
+    /** the name the bean is registered under */
+    public static final String OBJECT_NAME = "puzzles.common.solver:type=SearchMetrics";
+
+    /** the registered bean, null if JMX is off */
+    private static final JmxSearchListener SHARED = Boolean.getBoolean(ENABLE_PROPERTY) ? register() : null;
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+    private final AtomicLong totalExpanded = new AtomicLong();
+    /** the latest report, copied so it can be read from the JMX threads */
+    private volatile SearchMetrics latest = new SearchMetrics().snapshot();
+    private volatile String lastStatus = "";
+
+    // Registers the shared bean with the platform server
+    private static JmxSearchListener register() {
+        JmxSearchListener listener = new JmxSearchListener();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(listener, new ObjectName(OBJECT_NAME));
+        }
+        catch (InstanceAlreadyExistsException e) {
+            // Another copy of the classes already registered one, searches still report to this one
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+        }
+        return listener;
+    }
+
+    /**
+     * Adds the JMX bean to a search's listener when JMX is turned on
+     * @param listener the search's own listener, null for none
+     * @return the listener to give the search, null if there is nothing to report to
+     */
+    static SearchListener attach(SearchListener listener) {
+        if (SHARED == null) {
+            return listener;
+        }
+        SHARED.started.incrementAndGet();
+        if (listener == null) {
+            return SHARED;
+        }
+        return new SearchListener() {
+            @Override
+            public void searchProgress(SearchMetrics metrics) {
+                SHARED.searchProgress(metrics);
+                listener.searchProgress(metrics);
+            }
+
+            @Override
+            public void searchFinished(SearchMetrics metrics, SearchOutcome.Status status) {
+                SHARED.searchFinished(metrics, status);
+                listener.searchFinished(metrics, status);
+            }
+        };
+    }
+
+    @Override
+    public void searchProgress(SearchMetrics metrics) {
+        latest = metrics.snapshot();
+    }
+
+    @Override
+    public void searchFinished(SearchMetrics metrics, SearchOutcome.Status status) {
+        latest = metrics.snapshot();
+        lastStatus = status.name();
+        totalExpanded.addAndGet(metrics.getExpanded());
+        finished.incrementAndGet();
+    }
+
+    @Override
+    public long getSearchesStarted() {
+        return started.get();
+    }
+
+    @Override
+    public long getSearchesFinished() {
+        return finished.get();
+    }
+
+    @Override
+    public long getTotalExpanded() {
+        return totalExpanded.get();
+    }
+
+    @Override
+    public String getLastStatus() {
+        return lastStatus;
+    }
+
+    @Override
+    public long getExpanded() {
+        return latest.getExpanded();
+    }
+
+    @Override
+    public long getGenerated() {
+        return latest.getGenerated();
+    }
+
+    @Override
+    public long getVisited() {
+        return latest.getVisited();
+    }
+
+    @Override
+    public long getPruned() {
+        return latest.getPruned();
+    }
+
+    @Override
+    public double getDuplicateRate() {
+        return latest.getDuplicateRate();
+    }
+
+    @Override
+    public long getPeakFrontier() {
+        return latest.getPeakFrontier();
+    }
+
+    @Override
+    public long getVisitedBytes() {
+        return latest.getVisitedBytes();
+    }
+
+    @Override
+    public double getExpansionsPerSecond() {
+        return latest.getExpansionsPerSecond();
+    }
+
+    @Override
+    public long getGenerationMillis() {
+        return latest.getGenerationNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getHashingMillis() {
+        return latest.getHashingNanos() / 1_000_000;
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return latest.getElapsedNanos() / 1_000_000;
+    }
+}
@@ -0,0 +1,127 @@
+package puzzles.common.solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Files of fixed width keys for the external memory solver. Keys are written
+ * through a direct buffer and read back through memory mapped windows, so
+ * neither side holds more than one buffer of keys on the heap.
+ */
+final class KeyFile {
+    /** bytes written per channel write */
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    /** the most bytes mapped at once when reading */
+    private static final long WINDOW_BYTES = 1 << 27;
+
+    private KeyFile() {
+    }
+
+    /**
+     * Compares two keys long by long
+     * @return negative, 0 or positive as the first key sorts before, with or after the second
+     */
+    static int compare(long[] a, int aOffset, long[] b, int bOffset, int width) {
+        for (int i = 0; i < width; i++) {
+            int diff = Long.compare(a[aOffset + i], b[bOffset + i]);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    /** Writes keys to the end of a new file */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+        private final int width;
+        private long count;
+
+        Writer(Path file, int width) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.width = width;
+        }
+
+        void write(long[] key, int offset) throws IOException {
+            if (buffer.remaining() < width * Long.BYTES) {
+                flush();
+            }
+            for (int i = 0; i < width; i++) {
+                buffer.putLong(key[offset + i]);
+            }
+            count++;
+        }
+
+        /** Gets the number of keys written */
+        long count() {
+            return count;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    /** Reads the keys of a file in order, one mapped window at a time */
+    static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final int width;
+        private final long size;
+        /** bytes per window, a whole number of keys */
+        private final long window;
+        private long position;
+        private MappedByteBuffer mapped;
+
+        Reader(Path file, int width) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.width = width;
+            this.size = channel.size();
+            long keyBytes = (long) width * Long.BYTES;
+            this.window = Math.max(1, WINDOW_BYTES / keyBytes) * keyBytes;
+        }
+
+        /**
+         * Reads the next key
+         * @param dest where to copy it
+         * @param offset where it starts in dest
+         * @return false if there are no more keys
+         */
+        boolean next(long[] dest, int offset) throws IOException {
+            if (mapped == null || !mapped.hasRemaining()) {
+                if (position >= size) {
+                    return false;
+                }
+                long length = Math.min(window, size - position);
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                position += length;
+            }
+            for (int i = 0; i < width; i++) {
+                dest[offset + i] = mapped.getLong();
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            mapped = null;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package puzzles.common.solver;
+
+/**
+ * A first in first out queue of fixed width keys stored in a growable
+ * ring buffer of longs, so queueing a key allocates nothing.
+ */
+class KeyQueue {
+    /** the number of longs per key */
+    private final int width;
+    /** the buffer, width longs per entry */
+    private long[] buffer;
+    /** index of the first entry */
+    private int head;
+    /** number of entries */
+    private int size;
+
+    /**
+     * Creates an empty queue.
+     * @param width the number of longs in each key
+     */
+    KeyQueue(int width) {
+        this.width = width;
+        this.buffer = new long[256 * width];
+    }
+
+    /** Checks if there are no keys queued */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Gets the number of keys queued */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a key to the back of the queue.
+     * @param key the array holding the key
+     * @param offset where the key starts
+     */
+    void offer(long[] key, int offset) {
+        int capacity = buffer.length / width;
+        if (size == capacity) {
+            // unroll the ring into a buffer twice the size
+            long[] bigger = new long[buffer.length * 2];
+            int firstPart = (capacity - head) * width;
+            System.arraycopy(buffer, head * width, bigger, 0, firstPart);
+            System.arraycopy(buffer, 0, bigger, firstPart, head * width);
+            buffer = bigger;
+            head = 0;
+            capacity *= 2;
+        }
+        int tail = (head + size) % capacity;
+        System.arraycopy(key, offset, buffer, tail * width, width);
+        size++;
+    }
+
+    /**
+     * Removes the key at the front of the queue.
+     * @param dest the array to copy the key into
+     * @param offset where to put the key
+     */
+    void poll(long[] dest, int offset) {
+        System.arraycopy(buffer, head * width, dest, offset, width);
+        head = (head + 1) % (buffer.length / width);
+        size--;
+    }
+}
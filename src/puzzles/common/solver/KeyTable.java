@@ -0,0 +1,238 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table from a fixed width key of longs to the key of
+ * its parent, or to the code of the move that made it for puzzles that can undo
+ * their moves. Used by the solver as both the visited set and the predecessor
+ * map without allocating an object per entry. Collisions are resolved with
+ * linear probing and the table doubles once it is half full.
+ * Callers pass in each key's 64 bit hash, either from {@link #hash} or one the
+ * configuration keeps itself, and must use the same kind for every key.
+ */
+class KeyTable {
+    /** the number of longs per key */
+    private final int width;
+    /** the keys, width longs per slot */
+    private long[] keys;
+    /** the parent keys, width longs per slot, null when storing move codes */
+    private long[] parents;
+    /** the move codes, one per slot, null when storing parent keys */
+    private int[] moves;
+    /** the hash of the key in each slot, 0 if the slot is empty */
+    private int[] hashes;
+    /** the number of keys stored */
+    private int size;
+
+    /**
+     * Creates an empty table that stores parent keys.
+     * @param width the number of longs in each key
+     */
+    KeyTable(int width) {
+        this(width, false);
+    }
+
+    /**
+     * Creates an empty table.
+     * @param width the number of longs in each key
+     * @param moveCodes whether to store a move code per key instead of the parent's key
+     */
+    KeyTable(int width, boolean moveCodes) {
+        this.width = width;
+        allocate(1024, moveCodes);
+    }
+
+    private void allocate(int capacity, boolean moveCodes) {
+        keys = new long[capacity * width];
+        parents = moveCodes ? null : new long[capacity * width];
+        moves = moveCodes ? new int[capacity] : null;
+        hashes = new int[capacity];
+    }
+
+    /** Gets the number of keys stored */
+    int size() {
+        return size;
+    }
+
+    /** Gets the bytes taken by the table's arrays, not counting array headers */
+    long footprintBytes() {
+        long links = parents != null ? 8L * parents.length : 4L * moves.length;
+        return 8L * keys.length + links + 4L * hashes.length;
+    }
+
+    /**
+     * Hashes a key by mixing all of its longs, for keys whose configuration
+     * does not keep a hash of its own.
+     * @param key the array holding the key
+     * @param offset where the key starts
+     * @return the hash
+     */
+    long hash(long[] key, int offset) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < width; i++) {
+            h = (h ^ key[offset + i]) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        return h;
+    }
+
+    // Folds a key's hash into a slot hash, never 0 since that marks an empty slot
+    private static int slotHash(long hash) {
+        int result = (int) ((hash * 0x9E3779B97F4A7C15L) >>> 32);
+        return result == 0 ? 1 : result;
+    }
+
+    // Finds the slot holding the key, or the empty slot it would go in
+    private int slotOf(long[] key, int offset, int hash) {
+        int mask = hashes.length - 1;
+        int slot = hash & mask;
+        while (hashes[slot] != 0) {
+            if (hashes[slot] == hash && Arrays.equals(keys, slot * width, slot * width + width,
+                    key, offset, offset + width)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Checks if the key has been added.
+     * @param key the array holding the key
+     * @param offset where the key starts
+     * @param hash the key's hash
+     * @return true if it is in the table
+     */
+    boolean contains(long[] key, int offset, long hash) {
+        return hashes[slotOf(key, offset, slotHash(hash))] != 0;
+    }
+
+    /**
+     * Adds a key with its parent unless the key is already in the table.
+     * @param key the array holding the key
+     * @param offset where the key starts
+     * @param hash the key's hash
+     * @param parent the array holding the parent's key, null for the start
+     * @param parentOffset where the parent's key starts
+     * @return true if the key was added, false if it was already there
+     */
+    boolean putIfAbsent(long[] key, int offset, long hash, long[] parent, int parentOffset) {
+        int slot = add(key, offset, hash);
+        if (slot < 0) {
+            return false;
+        }
+        // the start is stored as its own parent
+        if (parent == null) {
+            System.arraycopy(key, offset, parents, slot * width, width);
+        }
+        else {
+            System.arraycopy(parent, parentOffset, parents, slot * width, width);
+        }
+        growIfFull();
+        return true;
+    }
+
+    /**
+     * Adds a key with the code of the move that made it unless the key is already
+     * in the table. Only for tables that store move codes.
+     * @param key the array holding the key
+     * @param offset where the key starts
+     * @param hash the key's hash
+     * @param move the move code, ReversibleConfiguration.NO_MOVE for the start
+     * @return true if the key was added, false if it was already there
+     */
+    boolean putIfAbsent(long[] key, int offset, long hash, int move) {
+        int slot = add(key, offset, hash);
+        if (slot < 0) {
+            return false;
+        }
+        moves[slot] = move;
+        growIfFull();
+        return true;
+    }
+
+    // Puts the key in its empty slot and returns the slot, -1 if it is already there
+    private int add(long[] key, int offset, long hash) {
+        int slotHash = slotHash(hash);
+        int slot = slotOf(key, offset, slotHash);
+        if (hashes[slot] != 0) {
+            return -1;
+        }
+        hashes[slot] = slotHash;
+        System.arraycopy(key, offset, keys, slot * width, width);
+        size++;
+        return slot;
+    }
+
+    private void growIfFull() {
+        if (size * 2 > hashes.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Copies the parent of a key into dest.
+     * @param key the array holding the key, which must be in the table
+     * @param offset where the key starts
+     * @param hash the key's hash
+     * @param dest the array to copy the parent's key into
+     * @param destOffset where to put the parent's key
+     * @return false if the key is the start and has no parent
+     * @throws IllegalStateException if the key is not in the table
+     */
+    boolean getParent(long[] key, int offset, long hash, long[] dest, int destOffset) {
+        int slot = slotOf(key, offset, slotHash(hash));
+        if (hashes[slot] == 0) {
+            throw new IllegalStateException("Key is not in the table");
+        }
+        if (Arrays.equals(parents, slot * width, slot * width + width,
+                keys, slot * width, slot * width + width)) {
+            return false;
+        }
+        System.arraycopy(parents, slot * width, dest, destOffset, width);
+        return true;
+    }
+
+    /**
+     * Gets the code of the move that made a key. Only for tables that store move codes.
+     * @param key the array holding the key, which must be in the table
+     * @param offset where the key starts
+     * @param hash the key's hash
+     * @return the move code, ReversibleConfiguration.NO_MOVE for the start
+     * @throws IllegalStateException if the key is not in the table
+     */
+    int getMove(long[] key, int offset, long hash) {
+        int slot = slotOf(key, offset, slotHash(hash));
+        if (hashes[slot] == 0) {
+            throw new IllegalStateException("Key is not in the table");
+        }
+        return moves[slot];
+    }
+
+    // Doubles the capacity and reinserts every key
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldParents = parents;
+        int[] oldMoves = moves;
+        int[] oldHashes = hashes;
+        allocate(oldHashes.length * 2, oldMoves != null);
+        int mask = hashes.length - 1;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != 0) {
+                int slot = oldHashes[i] & mask;
+                while (hashes[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                hashes[slot] = oldHashes[i];
+                System.arraycopy(oldKeys, i * width, keys, slot * width, width);
+                if (oldParents != null) {
+                    System.arraycopy(oldParents, i * width, parents, slot * width, width);
+                }
+                else {
+                    moves[slot] = oldMoves[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration that can be packed into a fixed number of longs.
+ * The solver uses the packed key instead of the configuration object in its
+ * visited set and predecessor map, and only rebuilds configurations from
+ * their keys when it needs to expand them or return the path.
+ */
+public interface KeyedConfiguration extends Configuration {
+    /**
+     * Gets how many longs the key takes. Every configuration reachable from
+     * this one must fit in the same number of longs.
+     * @return the key length
+     */
+    int getKeyLength();
+
+    /**
+     * Packs this configuration into dest. Two configurations are equal
+     * exactly when their keys are equal.
+     * @param dest the array to write into
+     * @param offset where the key starts in dest
+     */
+    void writeKey(long[] dest, int offset);
+
+    /**
+     * Rebuilds a configuration of the same puzzle from a packed key.
+     * @param src the array holding the key
+     * @param offset where the key starts in src
+     * @return the configuration the key was written from
+     */
+    KeyedConfiguration fromKey(long[] src, int offset);
+
+    /**
+     * Gets a 64 bit hash of this configuration's key that it keeps up to date
+     * itself, like a Zobrist hash updated with each move, so the solver does not
+     * have to hash every key it packs. Equal keys must give equal hashes.
+     * @return the hash, or 0 to let the solver hash the packed key instead
+     */
+    default long getKeyHash() {
+        return 0;
+    }
+}
@@ -0,0 +1,170 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * A level synchronous breadth first search that expands each level of the
+ * search across a ForkJoinPool.
+ * Every configuration found on a level is tagged with the position of its parent
+ * in the level and its position among the parent's neighbors. The smallest tag wins
+ * and the next level is ordered by tag, which is exactly the order the single
+ * threaded BFSSolver would have queued them in. Like BFSSolver it keeps only the
+ * canonical form of each configuration and unfolds the path from the real start at
+ * the end, so the path and the configuration counts are the same as BFSSolver's no
+ * matter how many threads run.
+ */
+public class ParallelSolver {
+    /** Levels smaller than this are not split any further between threads */
+    private static final int SPLIT_THRESHOLD = 64;
+
+    /**
+     * Solves using a parallel breadth first search
+     * Prints the number of configurations created and the number of unique configurations
+     * @param start the starting configuration
+     * @param threads the number of threads to expand each level with
+     * @return List of the path from the start to the end, null if there is none
+     */
+    public static LinkedList<Configuration> ParallelBFSSolver(Configuration start, int threads)
+    {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return search(start, pool);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Calls the parallel solver and prints the solution
+     * @param start the starting configuration
+     * @param threads the number of threads to expand each level with
+     */
+    public static void PrintParallelBFSSolution(Configuration start, int threads)
+    {
+        Solver.PrintPath(ParallelBFSSolver(start, threads));
+    }
+
+    private static LinkedList<Configuration> search(Configuration start, ForkJoinPool pool)
+    {
+        AtomicLong configCount = new AtomicLong();
+        int unique = 0;
+        //Predecessor map for every level found so far, only written between levels
+        //Like BFSSolver it searches over canonical configurations only
+        Map<Configuration, Configuration> predmap = new ConcurrentHashMap<>();
+        Configuration canonicalStart = start.getCanonical();
+        predmap.put(canonicalStart, canonicalStart);
+        //A dead start gives an empty first level, so there is nothing to expand
+        List<Configuration> level = canonicalStart.isDead() ? List.of() : List.of(canonicalStart);
+        Configuration solution = null;
+
+        while(!level.isEmpty())
+        {
+            //The single threaded search stops at the first solution in the level
+            List<Configuration> current = level;
+            AtomicInteger firstSolution = new AtomicInteger(current.size());
+            forEachIndex(pool, current.size(), i -> {
+                if(current.get(i).isSolution()) {
+                    firstSolution.accumulateAndGet(i, Math::min);
+                }
+            });
+            int expand = firstSolution.get();
+
+            //Expand everything before it, keeping the smallest tag for each new config
+            Map<Configuration, Long> found = new ConcurrentHashMap<>();
+            forEachIndex(pool, expand, i -> {
+                long neighborIndex = 0;
+                for(Configuration generated : current.get(i).getNeighbors())
+                {
+                    configCount.incrementAndGet();
+                    Configuration neighbor = generated.getCanonical();
+                    if(!predmap.containsKey(neighbor)) {
+                        found.merge(neighbor, ((long) i << 32) | neighborIndex, Math::min);
+                    }
+                    neighborIndex++;
+                }
+            });
+
+            //Order the new level the way the single threaded search would have
+            List<Map.Entry<Configuration, Long>> entries = found.entrySet().parallelStream()
+                    .sorted(Map.Entry.comparingByValue())
+                    .toList();
+            //Configurations that can never be solved are remembered but not expanded
+            boolean[] dead = new boolean[entries.size()];
+            forEachIndex(pool, entries.size(), i -> dead[i] = entries.get(i).getKey().isDead());
+            List<Configuration> next = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                predmap.put(entries.get(i).getKey(), current.get((int) (entries.get(i).getValue() >>> 32)));
+                if(!dead[i]) {
+                    next.add(entries.get(i).getKey());
+                }
+            }
+            unique += entries.size();
+
+            if(expand < current.size()) {
+                solution = current.get(expand);
+                break;
+            }
+            level = next;
+        }
+        //Printing the configuration counts
+        System.out.println("Total configs: " + configCount.get());
+        System.out.println("Unique configs: " + unique);
+        //No solution
+        if(solution == null) {
+            return null;
+        }
+        //Creating the list of the path, the start is its own predecessor
+        LinkedList<Configuration> path = new LinkedList<>();
+        path.addFirst(solution);
+        Configuration prev = solution;
+        while(prev != canonicalStart)
+        {
+            prev = predmap.get(prev);
+            path.addFirst(prev);
+        }
+        return Solver.UnfoldPath(start, path);
+    }
+
+    // Runs the action on every index in [0, size) across the pool
+    private static void forEachIndex(ForkJoinPool pool, int size, IntConsumer action)
+    {
+        pool.invoke(new RangeTask(0, size, action));
+    }
+
+    /** Splits a range of indexes in half until it is small enough to run directly */
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        RangeTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= SPLIT_THRESHOLD) {
+                for(int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+            }
+            else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(from, mid, action), new RangeTask(mid, to, action));
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package puzzles.common.solver;
+
+/**
+ * A keyed configuration that knows the move it was made by and can undo it.
+ * The solver then only stores a move code for each visited configuration
+ * instead of its parent's whole key, and rebuilds the path from the solution
+ * by undoing the moves back to the start.
+ */
+public interface ReversibleConfiguration extends KeyedConfiguration {
+    /** The move code of a configuration that was not made by a move */
+    int NO_MOVE = -1;
+
+    /**
+     * Gets the code of the move that made this configuration. A canonical form
+     * made by a symmetry has to keep the code of the move, along with whatever it
+     * needs to turn itself back, so undoing it still gives the original parent.
+     * @return a code of at least 0, or NO_MOVE for a configuration that was read in
+     * or rebuilt from a key
+     */
+    int getMoveCode();
+
+    /**
+     * Undoes a move.
+     * @param moveCode a code this configuration, or one equal to it, gave
+     * @return the configuration the move was made from, exactly as it was
+     */
+    ReversibleConfiguration undoMove(int moveCode);
+}
@@ -0,0 +1,22 @@
+package puzzles.common.solver;
+
+/**
+ * Told how a breadth first search is going. The solver calls it from the
+ * searching thread, so it should be quick, and it should copy what it wants to
+ * keep with {@link SearchMetrics#snapshot()} since the metrics keep changing.
+ */
+public interface SearchListener {
+    /**
+     * Called every {@link SearchMetrics#PROGRESS_INTERVAL} expansions
+     * @param metrics the search so far
+     */
+    default void searchProgress(SearchMetrics metrics) {
+    }
+
+    /**
+     * Called once when the search stops, whatever the reason
+     * @param metrics the whole search
+     * @param status why it stopped
+     */
+    void searchFinished(SearchMetrics metrics, SearchOutcome.Status status);
+}
@@ -0,0 +1,151 @@
+package puzzles.common.solver;
+
+/**
+ * Counters collected by a breadth first search for a {@link SearchListener}.
+ * The time spent is split between generating neighbors, which includes rebuilding
+ * configurations from their keys, and hashing them, which covers finding each
+ * neighbor's canonical form, hashing it, looking it up in the visited set and
+ * checking whether it is dead.
+ * Timing costs two clock reads per neighbor, so it only happens when a search has
+ * a listener.
+ */
+public class SearchMetrics {
+    /** how many expansions there are between progress reports */
+    public static final int PROGRESS_INTERVAL = 4096;
+
+    private long expanded;
+    private long generated;
+    private long visited;
+    private long pruned;
+    private long peakFrontier;
+    private long visitedBytes;
+    private final long startNanos;
+    private long elapsedNanos;
+    private long generationNanos;
+    private long hashingNanos;
+
+    SearchMetrics() {
+        startNanos = System.nanoTime();
+    }
+
+    // Copies another search's counters
+    private SearchMetrics(SearchMetrics other) {
+        expanded = other.expanded;
+        generated = other.generated;
+        visited = other.visited;
+        pruned = other.pruned;
+        peakFrontier = other.peakFrontier;
+        visitedBytes = other.visitedBytes;
+        startNanos = other.startNanos;
+        elapsedNanos = other.elapsedNanos;
+        generationNanos = other.generationNanos;
+        hashingNanos = other.hashingNanos;
+    }
+
+    /**
+     * Records one expansion
+     * @param nanos how long it took, generating and hashing together
+     * @param frontier how many configurations are queued after it
+     */
+    void expansion(long nanos, long frontier) {
+        expanded++;
+        generationNanos += nanos;
+        if (frontier > peakFrontier) {
+            peakFrontier = frontier;
+        }
+    }
+
+    /**
+     * Brings the totals up to date, before a report
+     * @param generated the configurations generated so far
+     * @param visited the size of the visited set
+     * @param pruned the visited configurations that were found dead and not queued
+     * @param visitedBytes the estimated heap used by the visited set
+     * @param hashingNanos the time spent hashing so far, which is taken out of generation time
+     */
+    void update(long generated, long visited, long pruned, long visitedBytes, long hashingNanos) {
+        this.generated = generated;
+        this.visited = visited;
+        this.pruned = pruned;
+        this.visitedBytes = visitedBytes;
+        this.generationNanos -= hashingNanos - this.hashingNanos;
+        this.hashingNanos = hashingNanos;
+        this.elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Copies the counters so they can be kept or read from another thread
+     * @return a copy that no longer changes
+     */
+    public SearchMetrics snapshot() {
+        return new SearchMetrics(this);
+    }
+
+    /** Gets the number of configurations expanded */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /** Gets the number of neighbors generated, duplicates included */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /** Gets the number of configurations in the visited set, the start included */
+    public long getVisited() {
+        return visited;
+    }
+
+    /** Gets the number of visited configurations that could never be solved, which were never queued */
+    public long getPruned() {
+        return pruned;
+    }
+
+    /** Gets the fraction of generated neighbors that were already visited */
+    public double getDuplicateRate() {
+        return generated == 0 ? 0 : (double) (generated - (visited - 1)) / generated;
+    }
+
+    /** Gets the most configurations that were queued at once */
+    public long getPeakFrontier() {
+        return peakFrontier;
+    }
+
+    /**
+     * Gets an estimate of the heap the visited set takes. For keyed searches this is the
+     * table's arrays; for configuration objects it is the map's entries, not counting the
+     * configurations themselves.
+     */
+    public long getVisitedBytes() {
+        return visitedBytes;
+    }
+
+    /** Gets how long the search has run */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /** Gets the time spent generating neighbors */
+    public long getGenerationNanos() {
+        return generationNanos;
+    }
+
+    /** Gets the time spent hashing neighbors and checking the visited set */
+    public long getHashingNanos() {
+        return hashingNanos;
+    }
+
+    /** Gets the expansion rate over the whole search */
+    public double getExpansionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : expanded * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("expanded=%d generated=%d visited=%d pruned=%d duplicates=%.1f%% peakFrontier=%d "
+                        + "visitedMB=%.1f expansions/s=%.0f generationMs=%d hashingMs=%d elapsedMs=%d",
+                expanded, generated, visited, pruned, 100 * getDuplicateRate(), peakFrontier,
+                visitedBytes / 1048576.0, getExpansionsPerSecond(),
+                generationNanos / 1_000_000, hashingNanos / 1_000_000, elapsedNanos / 1_000_000);
+    }
+}
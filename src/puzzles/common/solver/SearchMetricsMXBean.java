@@ -0,0 +1,44 @@
+package puzzles.common.solver;
+
+/**
+ * The solver's metrics over JMX, registered as {@value JmxSearchListener#OBJECT_NAME}
+ * when the {@value JmxSearchListener#ENABLE_PROPERTY} system property is true.
+ * The last search's figures are from its latest report, so they lag by up to
+ * {@link SearchMetrics#PROGRESS_INTERVAL} expansions while it runs. With several
+ * searches running at once they are from whichever reported last.
+ */
+public interface SearchMetricsMXBean {
+    /** Gets the number of searches started */
+    long getSearchesStarted();
+
+    /** Gets the number of searches finished */
+    long getSearchesFinished();
+
+    /** Gets the expansions of every finished search added up */
+    long getTotalExpanded();
+
+    /** Gets how the last search to finish ended, empty before any have */
+    String getLastStatus();
+
+    long getExpanded();
+
+    long getGenerated();
+
+    long getVisited();
+
+    long getPruned();
+
+    double getDuplicateRate();
+
+    long getPeakFrontier();
+
+    long getVisitedBytes();
+
+    double getExpansionsPerSecond();
+
+    long getGenerationMillis();
+
+    long getHashingMillis();
+
+    long getElapsedMillis();
+}
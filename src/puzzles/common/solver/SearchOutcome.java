@@ -0,0 +1,25 @@
+package puzzles.common.solver;
+
+import java.util.LinkedList;
+
+/**
+ * How a search ended, with the counts the solvers otherwise print.
+ *
+ * @param path the path from the start to a solution, null if none was found
+ * @param configCount the number of configurations generated
+ * @param unique the number of distinct configurations found
+ * @param status why the search stopped
+ */
+public record SearchOutcome(LinkedList<Configuration> path, long configCount, long unique, Status status) {
+    /** Why a search stopped */
+    public enum Status {
+        /** a solution was found */
+        SOLVED,
+        /** every reachable configuration was searched without finding a solution */
+        NO_SOLUTION,
+        /** it found more configurations than it was allowed to keep */
+        STATE_LIMIT,
+        /** it ran past its time limit */
+        TIME_LIMIT
+    }
+}
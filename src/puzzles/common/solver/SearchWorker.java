@@ -0,0 +1,136 @@
+package puzzles.common.solver;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs searches for a model on a background thread so the user interface stays
+ * responsive. Only one search runs at a time, starting another cancels the last.
+ * Results are handed back through a notifier, such as the GUI toolkit's run later,
+ * and are dropped if the search was cancelled or replaced before they arrive.
+ * Cancelling interrupts the search thread, which searches answer by throwing a
+ * CancellationException. A search that fails any other way, or runs out of memory,
+ * is finished too and the failure is handed to the notifier like a last update.
+ */
+public class SearchWorker {
+    /**
+     * A search to run in the background
+     */
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * Does the search
+         * @param publisher hands progress updates to the notifier
+         * @return the last update to hand over once the search is finished, null for none
+         * @throws InterruptedException if the search was cancelled while waiting
+         */
+        Runnable run(Publisher publisher) throws InterruptedException;
+    }
+
+    /**
+     * Passes updates from a search back to the thread that owns the model
+     */
+    @FunctionalInterface
+    public interface Publisher {
+        /**
+         * Runs an update through the notifier, unless the search is cancelled by then
+         * @param update the change to make, such as alerting the observers
+         */
+        void publish(Runnable update);
+    }
+
+    /** the single background thread, which does not keep the program running */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** where updates are run */
+    private final Executor notifier;
+    /** told on the notifier when a search fails */
+    private final Consumer<Throwable> onFailure;
+    /** the search that is running, null if none */
+    private Future<?> pending;
+    /** counts the searches started and cancelled, so late updates can tell they are stale */
+    private volatile long generation;
+    /** whether a search has been started and not finished or cancelled */
+    private volatile boolean running;
+
+    /**
+     * Creates a worker
+     * @param notifier runs the updates, for a GUI this should put them on its thread
+     * @param onFailure told on the notifier when a search throws or runs out of memory,
+     *                  unless it was cancelled or replaced by then
+     */
+    public SearchWorker(Executor notifier, Consumer<Throwable> onFailure) {
+        this.notifier = notifier;
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Starts a search on the background thread, cancelling any search still running
+     * @param task the search
+     */
+    public synchronized void submit(Task task) {
+        cancel();
+        long searchGeneration = ++generation;
+        running = true;
+        Publisher publisher = update -> notifier.execute(() -> {
+            if(generation == searchGeneration) {
+                update.run();
+            }
+        });
+        pending = executor.submit(() -> {
+            try {
+                Runnable last = task.run(publisher);
+                notifier.execute(() -> {
+                    if(generation == searchGeneration) {
+                        running = false;
+                        if(last != null) {
+                            last.run();
+                        }
+                    }
+                });
+            }
+            catch(CancellationException | InterruptedException ignored) {
+                //Cancelled, whoever cancelled it already moved on
+            }
+            catch(RuntimeException | OutOfMemoryError failure) {
+                //The search is over, so it must not look like it is still running
+                notifier.execute(() -> {
+                    if(generation == searchGeneration) {
+                        running = false;
+                        onFailure.accept(failure);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Stops the running search, if there is one, and drops any updates it has not delivered
+     * @return true if a search was running
+     */
+    public synchronized boolean cancel() {
+        boolean wasRunning = running;
+        generation++;
+        running = false;
+        if(pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+        return wasRunning;
+    }
+
+    /**
+     * Checks if a search is running
+     * @return true from when a search is submitted until its last update runs or it is cancelled
+     */
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,248 @@
+package puzzles.common.solver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+
+/**
+ * Remembers the solutions found for a puzzle so asking for the next move again
+ * does not solve it from scratch. Every configuration on a solved path keeps its
+ * distance to a solution and the next step towards it, so following the path is
+ * just a lookup. Moving off the path only searches until it meets one of the
+ * configurations already solved.
+ * Configurations are stored by their canonical form, so a solution also covers
+ * the symmetric configurations.
+ * With a {@link SolutionStore} it looks there before searching, and stores
+ * what each search finds.
+ * Searches stop with a CancellationException when their thread is interrupted,
+ * leaving the cache as it was. The cache is not thread safe, use it from one thread
+ * at a time.
+ */
+public class SolutionCache {
+    /** the moves left to a solution from each solved configuration */
+    private final HashMap<Configuration, Integer> distances = new HashMap<>();
+    /** the canonical form of the next step from each solved configuration */
+    private final HashMap<Configuration, Configuration> nextSteps = new HashMap<>();
+    /** configurations known to have no solution */
+    private final HashSet<Configuration> unsolvable = new HashSet<>();
+    /** solutions kept between runs, null to only remember them in memory */
+    private final SolutionStore store;
+
+    /** Creates a cache that only remembers solutions in memory */
+    public SolutionCache()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates a cache backed by a store
+     * @param store where to look before searching and to keep what is found, null for none
+     */
+    public SolutionCache(SolutionStore store)
+    {
+        this.store = store;
+    }
+
+    /**
+     * Gets the next step towards a solution, searching only if the cache does not cover it
+     * @param config the configuration to move from
+     * @return the next configuration, config itself if it is a solution, null if there is no solution
+     */
+    public Configuration nextStep(Configuration config)
+    {
+        return nextStep(config, searched -> {});
+    }
+
+    /**
+     * Gets the next step towards a solution, reporting how a search is going
+     * @param config the configuration to move from
+     * @param progress told the number of configurations searched after each level of a search
+     * @return the next configuration, config itself if it is a solution, null if there is no solution
+     * @throws CancellationException if the thread is interrupted during a search
+     */
+    public Configuration nextStep(Configuration config, IntConsumer progress)
+    {
+        if(config.isSolution()) {
+            return config;
+        }
+        Configuration canonical = config.getCanonical();
+        if(!nextSteps.containsKey(canonical) && !unsolvable.contains(canonical) && !lookUp(canonical))
+        {
+            boolean solved = solve(canonical, progress);
+            store(canonical, solved);
+        }
+        if(!nextSteps.containsKey(canonical)) {
+            return null;
+        }
+        return Solver.StepToward(config, nextSteps.get(canonical));
+    }
+
+    /**
+     * Gets every step from a configuration to a solution
+     * @param config the configuration to move from
+     * @param progress told the number of configurations searched after each level of a search
+     * @return the configurations after config up to and including the solution, null if there is no solution
+     * @throws CancellationException if the thread is interrupted during a search
+     */
+    public List<Configuration> pathFrom(Configuration config, IntConsumer progress)
+    {
+        List<Configuration> steps = new ArrayList<>();
+        //After the first step the rest of the path is already cached
+        for(Configuration curr = config; !curr.isSolution(); )
+        {
+            curr = nextStep(curr, progress);
+            if(curr == null) {
+                return null;
+            }
+            steps.add(curr);
+        }
+        return steps;
+    }
+
+    /**
+     * Copies what the store knows about a configuration into the cache
+     * @param canonical the configuration to look up
+     * @return true if the store knew it
+     */
+    private boolean lookUp(Configuration canonical)
+    {
+        if(store == null) {
+            return false;
+        }
+        SolutionStore.Stored stored;
+        try {
+            stored = store.findCanonical(canonical);
+        }
+        catch (IOException e) {
+            return false;
+        }
+        if(stored == null) {
+            return false;
+        }
+        if(!stored.isSolvable()) {
+            unsolvable.add(canonical);
+            return true;
+        }
+        //Every step of the stored path is one closer to the solution
+        int distance = stored.path().size() - 1;
+        Configuration prev = null;
+        for(Configuration step : stored.path())
+        {
+            if(prev != null) {
+                nextSteps.putIfAbsent(prev, step);
+            }
+            distances.putIfAbsent(step, distance--);
+            prev = step;
+        }
+        return true;
+    }
+
+    /**
+     * Keeps the result of a search in the store
+     * @param canonical the configuration that was searched from
+     * @param solved whether a solution was found
+     */
+    private void store(Configuration canonical, boolean solved)
+    {
+        if(store == null) {
+            return;
+        }
+        List<Configuration> path = null;
+        if(solved) {
+            path = new ArrayList<>();
+            for(Configuration step = canonical; step != null; step = nextSteps.get(step)) {
+                path.add(step);
+            }
+        }
+        try {
+            store.recordCanonical(canonical, path);
+        }
+        catch (IOException e) {
+            //Only costs solving it again next time
+        }
+    }
+
+    /** Forgets every solution, for when a different puzzle is loaded */
+    public void clear()
+    {
+        distances.clear();
+        nextSteps.clear();
+        unsolvable.clear();
+    }
+
+    /**
+     * Breadth first search from start that counts a solved configuration as being its
+     * distance away from a solution. Stops once no deeper level can do better than the
+     * best path found, then caches that path.
+     * @param start the canonical configuration to solve
+     * @param progress told the number of configurations searched after each level
+     * @return false if there is no solution
+     */
+    private boolean solve(Configuration start, IntConsumer progress)
+    {
+        HashMap<Configuration, Configuration> predmap = new HashMap<>();
+        predmap.put(start, null);
+        List<Configuration> level = new ArrayList<>();
+        level.add(start);
+        Configuration bestMeet = null;
+        int bestDepth = 0;
+        int best = Integer.MAX_VALUE;
+        for(int depth = 0; !level.isEmpty() && depth < best; depth++)
+        {
+            //Any solved configuration on this level is a way to finish
+            for(Configuration curr : level)
+            {
+                Integer distance = curr.isSolution() ? Integer.valueOf(0) : distances.get(curr);
+                if(distance != null && depth + distance < best) {
+                    best = depth + distance;
+                    bestMeet = curr;
+                    bestDepth = depth;
+                }
+            }
+            if(depth + 1 >= best) {
+                break;
+            }
+            //Expand everything else, what is already solved has nothing shorter past it
+            List<Configuration> nextLevel = new ArrayList<>();
+            for(Configuration curr : level)
+            {
+                if(Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Search interrupted");
+                }
+                if(curr.isSolution() || distances.containsKey(curr) || unsolvable.contains(curr)) {
+                    continue;
+                }
+                for(Configuration neighbor : curr.getNeighbors())
+                {
+                    Configuration canonical = neighbor.getCanonical();
+                    if(!predmap.containsKey(canonical)) {
+                        predmap.put(canonical, curr);
+                        nextLevel.add(canonical);
+                    }
+                }
+            }
+            level = nextLevel;
+            progress.accept(predmap.size());
+        }
+        //Nothing solved was reached, so nothing that was searched can be solved
+        if(bestMeet == null) {
+            unsolvable.addAll(predmap.keySet());
+            return false;
+        }
+        //Walking back to the start, every step is one further from the solution
+        int distance = best - bestDepth;
+        distances.putIfAbsent(bestMeet, distance);
+        Configuration step = bestMeet;
+        for(Configuration prev = predmap.get(step); prev != null; step = prev, prev = predmap.get(prev))
+        {
+            distance++;
+            distances.put(prev, distance);
+            nextSteps.put(prev, step);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,507 @@
+package puzzles.common.solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Solutions kept on disk between runs, so a puzzle that comes back is looked up
+ * instead of solved again.
+ * <ul>
+ *     <li>{@value #DATA_FILE} is only ever appended to, after a header of its magic number
+ *     and FORMAT_VERSION. Each record is a configuration's
+ *     fingerprint, which is its canonical form's class and text, then either the moves
+ *     to a solution or a mark that it has none. A move is stored as which of the
+ *     canonical configuration's neighbors it goes to, in getNeighbors order.</li>
+ *     <li>{@value #INDEX_FILE} is a hash table from a 64 bit hash of the fingerprint to
+ *     where its record starts, memory mapped so opening the store reads nothing and
+ *     a lookup only reads the record it finds. It says how much of the data file it
+ *     covers, and records after that are indexed when the store is opened, so it
+ *     catches up after a crash, and it is rebuilt from the data file if it is lost.</li>
+ * </ul>
+ * A store written with another FORMAT_VERSION is emptied when it is opened. Moves are only
+ * good as long as the puzzles list their neighbors in the same order, so FORMAT_VERSION
+ * goes up whenever that order changes. In case it was not, every stored path is replayed
+ * and checked to end at a solution, and one that does not is treated as not stored.
+ * The puzzle's toString has to describe the whole puzzle, as chess and hoppers boards do.
+ * Only one process can have a store open at a time.
+ */
+public final class SolutionStore implements Closeable {
+    /** The system property naming the directory of the store the solvers share, off if it is not set */
+    public static final String STORE_PROPERTY = "puzzles.solver.store";
+    static final String DATA_FILE = "solutions.dat";
+    static final String INDEX_FILE = "solutions.idx";
+
+    /** Goes up whenever the records or any puzzle's order of neighbors change */
+    static final int FORMAT_VERSION = 2;
+    private static final int DATA_MAGIC = 0x534F4C44;
+    /** magic then FORMAT_VERSION */
+    private static final int DATA_HEADER_BYTES = 8;
+    private static final int INDEX_MAGIC = 0x534F4C49;
+    /** magic, capacity, count, FORMAT_VERSION, then the length of the data file indexed */
+    private static final int HEADER_BYTES = 24;
+    /** a hash then the record's offset plus one, 0 for an empty slot */
+    private static final int SLOT_BYTES = 16;
+    private static final int INITIAL_SLOTS = 1024;
+    /** the steps of a configuration with no solution */
+    private static final int UNSOLVABLE = -1;
+
+    private static SolutionStore shared;
+    private static boolean sharedOpened;
+
+    /** What the store knows about a configuration */
+    public record Stored(LinkedList<Configuration> path) {
+        /** Checks if the configuration has a solution */
+        public boolean isSolvable() {
+            return path != null;
+        }
+    }
+
+    private final Path directory;
+    private final FileChannel data;
+    private final FileLock lock;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int count;
+
+    /**
+     * Opens a store, creating it if the directory has none
+     * @param directory where the store's files are
+     * @throws IOException if the files cannot be read or written, or another process has them open
+     */
+    public SolutionStore(Path directory) throws IOException
+    {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        data = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lock = data.tryLock();
+        if(lock == null) {
+            data.close();
+            throw new IOException("Solution store " + directory + " is open in another process");
+        }
+        openIndex();
+        //A store from another version starts over, its moves may lead anywhere now
+        if(!hasCurrentHeader()) {
+            data.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(DATA_HEADER_BYTES).putInt(DATA_MAGIC).putInt(FORMAT_VERSION).flip();
+            while(header.hasRemaining()) {
+                data.write(header, header.position());
+            }
+            createIndex(INITIAL_SLOTS, false);
+        }
+        //Index whatever was appended after the index was last written
+        long indexed = index.getLong(16);
+        if(indexed > data.size()) {
+            createIndex(INITIAL_SLOTS, false);
+            indexed = 0;
+        }
+        catchUp(Math.max(indexed, DATA_HEADER_BYTES));
+    }
+
+    // Checks the data file starts with the header of this version
+    private boolean hasCurrentHeader() throws IOException
+    {
+        ByteBuffer header = read(0, DATA_HEADER_BYTES);
+        return header.remaining() == DATA_HEADER_BYTES && header.getInt() == DATA_MAGIC
+                && header.getInt() == FORMAT_VERSION;
+    }
+
+    /**
+     * Gets the store named by the {@value #STORE_PROPERTY} system property, opening it the first time
+     * @return the store, null if the property is not set or the store cannot be opened
+     */
+    public static synchronized SolutionStore shared()
+    {
+        if(!sharedOpened)
+        {
+            sharedOpened = true;
+            String directory = System.getProperty(STORE_PROPERTY);
+            if(directory != null) {
+                try {
+                    shared = new SolutionStore(Path.of(directory));
+                }
+                catch (IOException e) {
+                    System.err.println("Solution store unavailable: " + e.getMessage());
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Looks a puzzle up in the shared store, or solves it and stores the answer there
+     * @param start the starting configuration
+     * @param solver solves start, returning null if it has no solution
+     * @return List of the path from the start to the end, null if there is none
+     */
+    public static LinkedList<Configuration> lookupOrSolve(Configuration start, Supplier<LinkedList<Configuration>> solver)
+    {
+        SolutionStore store = shared();
+        if(store == null) {
+            return solver.get();
+        }
+        try {
+            Stored stored = store.find(start);
+            if(stored != null) {
+                System.out.println("Found in solution store");
+                return stored.path();
+            }
+        }
+        catch (IOException e) {
+            System.err.println("Solution store unavailable: " + e.getMessage());
+            return solver.get();
+        }
+        LinkedList<Configuration> path = solver.get();
+        try {
+            store.record(start, path);
+        }
+        catch (IOException e) {
+            System.err.println("Solution not stored: " + e.getMessage());
+        }
+        return path;
+    }
+
+    /**
+     * Looks up a configuration, or any configuration symmetric to it
+     * @param start the configuration to look up
+     * @return the path from start to a solution, with a null path if it has none,
+     * or null if the store does not know it
+     * @throws IOException if the data file cannot be read
+     */
+    public synchronized Stored find(Configuration start) throws IOException
+    {
+        Stored stored = findCanonical(start.getCanonical());
+        if(stored == null || !stored.isSolvable()) {
+            return stored;
+        }
+        return new Stored(Solver.UnfoldPath(start, stored.path()));
+    }
+
+    /**
+     * Stores the answer for a configuration, unless it is already stored
+     * @param start the configuration that was solved
+     * @param path the path from start to a solution, null if there is none
+     * @throws IOException if the data file cannot be written
+     * @throws IllegalArgumentException if the path does not start at start or skips a move
+     */
+    public synchronized void record(Configuration start, List<Configuration> path) throws IOException
+    {
+        if(path == null) {
+            recordCanonical(start.getCanonical(), null);
+            return;
+        }
+        List<Configuration> canonicalPath = new LinkedList<>();
+        Iterator<Configuration> steps = path.iterator();
+        if(!steps.hasNext() || !steps.next().getCanonical().equals(start.getCanonical())) {
+            throw new IllegalArgumentException("The path does not begin at the start");
+        }
+        canonicalPath.add(start.getCanonical());
+        while(steps.hasNext()) {
+            canonicalPath.add(steps.next().getCanonical());
+        }
+        recordCanonical(canonicalPath.get(0), canonicalPath);
+    }
+
+    /**
+     * Looks up a canonical configuration
+     * @return the path over canonical configurations, with a null path if it has none,
+     * or null if the store does not know it
+     */
+    synchronized Stored findCanonical(Configuration canonical) throws IOException
+    {
+        byte[] fingerprint = fingerprint(canonical);
+        long hash = hash(fingerprint);
+        int mask = capacity - 1;
+        for(int slot = (int) hash & mask; ; slot = (slot + 1) & mask)
+        {
+            long offset = index.getLong(slotPosition(slot) + 8) - 1;
+            if(offset < 0) {
+                return null;
+            }
+            if(index.getLong(slotPosition(slot)) == hash)
+            {
+                int[] moves = readMoves(offset, fingerprint);
+                if(moves != null && moves.length == 1 && moves[0] == UNSOLVABLE) {
+                    return new Stored(null);
+                }
+                LinkedList<Configuration> path = moves == null ? null : replay(canonical, moves);
+                if(path != null) {
+                    return new Stored(path);
+                }
+                //Another configuration, or a path that no longer works, which is solved again
+                //and stored after this one
+            }
+        }
+    }
+
+    /**
+     * Stores the answer for a canonical configuration, unless it is already stored
+     * @param canonical the configuration that was solved
+     * @param canonicalPath the path from it over canonical configurations, null if it has no solution
+     */
+    synchronized void recordCanonical(Configuration canonical, List<Configuration> canonicalPath) throws IOException
+    {
+        byte[] fingerprint = fingerprint(canonical);
+        long hash = hash(fingerprint);
+        if(findCanonical(canonical) != null) {
+            return;
+        }
+        int[] moves = canonicalPath == null ? null : toMoves(canonicalPath);
+        int steps = moves == null ? UNSOLVABLE : moves.length;
+        ByteBuffer record = ByteBuffer.allocate(16 + fingerprint.length + 4 * Math.max(steps, 0));
+        record.putLong(hash).putInt(fingerprint.length).put(fingerprint).putInt(steps);
+        for(int i = 0; i < steps; i++) {
+            record.putInt(moves[i]);
+        }
+        record.flip();
+        long offset = data.size();
+        while(record.hasRemaining()) {
+            data.write(record, offset + record.position());
+        }
+        insert(hash, offset);
+        index.putLong(16, data.size());
+    }
+
+    // Turns a path of canonical configurations into which neighbor each step goes to
+    private static int[] toMoves(List<Configuration> canonicalPath)
+    {
+        int[] moves = new int[canonicalPath.size() - 1];
+        Iterator<Configuration> steps = canonicalPath.iterator();
+        Configuration curr = steps.next();
+        for(int i = 0; steps.hasNext(); i++)
+        {
+            Configuration next = steps.next();
+            moves[i] = -1;
+            int neighborIndex = 0;
+            for(Configuration neighbor : curr.getNeighbors())
+            {
+                if(neighbor.getCanonical().equals(next)) {
+                    moves[i] = neighborIndex;
+                    break;
+                }
+                neighborIndex++;
+            }
+            if(moves[i] < 0) {
+                throw new IllegalArgumentException("Step " + (i + 1) + " of the path is not a move");
+            }
+            curr = next;
+        }
+        return moves;
+    }
+
+    // Makes the moves from a canonical configuration, null unless every move is one of its neighbors and they end at a solution
+    private static LinkedList<Configuration> replay(Configuration canonical, int[] moves)
+    {
+        LinkedList<Configuration> path = new LinkedList<>();
+        path.add(canonical);
+        Configuration curr = canonical;
+        for(int move : moves)
+        {
+            Iterator<Configuration> neighbors = curr.getNeighbors().iterator();
+            for(int i = 0; i < move && neighbors.hasNext(); i++) {
+                neighbors.next();
+            }
+            if(move < 0 || !neighbors.hasNext()) {
+                return null;
+            }
+            curr = neighbors.next().getCanonical();
+            path.add(curr);
+        }
+        return curr.isSolution() ? path : null;
+    }
+
+    /**
+     * Reads the moves of the record at offset if its fingerprint matches
+     * @return the moves, a single UNSOLVABLE for a configuration without a solution,
+     * or null if the record is of a different configuration
+     */
+    private int[] readMoves(long offset, byte[] fingerprint) throws IOException
+    {
+        ByteBuffer header = read(offset, 12);
+        header.getLong();
+        if(header.getInt() != fingerprint.length) {
+            return null;
+        }
+        ByteBuffer body = read(offset + 12, fingerprint.length + 4);
+        byte[] stored = new byte[fingerprint.length];
+        body.get(stored);
+        if(!Arrays.equals(stored, fingerprint)) {
+            return null;
+        }
+        int steps = body.getInt();
+        if(steps == UNSOLVABLE) {
+            return new int[] {UNSOLVABLE};
+        }
+        long movesStart = offset + 16 + fingerprint.length;
+        if(steps < 0 || steps > (data.size() - movesStart) / 4) {
+            return null;
+        }
+        ByteBuffer moves = read(movesStart, 4 * steps);
+        int[] result = new int[steps];
+        moves.asIntBuffer().get(result);
+        return result;
+    }
+
+    // Reads length bytes of the data file, or fewer if it ends first
+    private ByteBuffer read(long position, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while(buffer.hasRemaining() && data.read(buffer, position + buffer.position()) >= 0) {
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Indexes the records from a position in the data file to its end. A record cut
+     * short by a crash is the last one, and is cut off.
+     */
+    private void catchUp(long position) throws IOException
+    {
+        long size = data.size();
+        while(position < size)
+        {
+            ByteBuffer header = read(position, 12);
+            if(header.remaining() < 12) {
+                break;
+            }
+            long hash = header.getLong();
+            int fingerprintLength = header.getInt();
+            ByteBuffer steps = read(position + 12 + fingerprintLength, 4);
+            if(fingerprintLength < 0 || steps.remaining() < 4) {
+                break;
+            }
+            long end = position + 16 + fingerprintLength + 4L * Math.max(steps.getInt(), 0);
+            if(end > size) {
+                break;
+            }
+            insert(hash, position);
+            position = end;
+        }
+        if(position < size) {
+            data.truncate(position);
+        }
+        index.putLong(16, position);
+    }
+
+    // Maps the index file, starting an empty one if it is missing or not an index
+    private void openIndex() throws IOException
+    {
+        Path file = directory.resolve(INDEX_FILE);
+        if(!Files.exists(file) || Files.size(file) < HEADER_BYTES) {
+            createIndex(INITIAL_SLOTS, false);
+            return;
+        }
+        indexChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+        capacity = index.getInt(4);
+        count = index.getInt(8);
+        if(index.getInt(0) != INDEX_MAGIC || index.getInt(12) != FORMAT_VERSION || Integer.bitCount(capacity) != 1
+                || indexChannel.size() != HEADER_BYTES + (long) capacity * SLOT_BYTES) {
+            createIndex(INITIAL_SLOTS, false);
+        }
+    }
+
+    /**
+     * Writes a new index beside the old one, then swaps it in, so a crash leaves one of the two whole
+     * @param slots the size of the new index
+     * @param keep whether to copy over the old index's entries, when it is growing
+     */
+    private void createIndex(int slots, boolean keep) throws IOException
+    {
+        MappedByteBuffer old = index;
+        int oldCapacity = capacity;
+        Path file = directory.resolve(INDEX_FILE);
+        Path next = directory.resolve(INDEX_FILE + ".new");
+        FileChannel channel = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        index = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) slots * SLOT_BYTES);
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, slots);
+        index.putInt(12, FORMAT_VERSION);
+        capacity = slots;
+        count = 0;
+        long indexed = 0;
+        if(keep)
+        {
+            for(int slot = 0; slot < oldCapacity; slot++)
+            {
+                long offset = old.getLong(HEADER_BYTES + slot * SLOT_BYTES + 8);
+                if(offset != 0) {
+                    insert(old.getLong(HEADER_BYTES + slot * SLOT_BYTES), offset - 1);
+                }
+            }
+            indexed = old.getLong(16);
+        }
+        index.putLong(16, indexed);
+        index.force();
+        if(indexChannel != null) {
+            indexChannel.close();
+        }
+        Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexChannel = channel;
+    }
+
+    // Adds a record's offset under its hash, growing the index once it is half full
+    private void insert(long hash, long offset) throws IOException
+    {
+        if((count + 1) * 2 > capacity) {
+            createIndex(capacity * 2, true);
+        }
+        int mask = capacity - 1;
+        int slot = (int) hash & mask;
+        while(index.getLong(slotPosition(slot) + 8) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index.putLong(slotPosition(slot), hash);
+        index.putLong(slotPosition(slot) + 8, offset + 1);
+        count++;
+        index.putInt(8, count);
+    }
+
+    private static int slotPosition(int slot)
+    {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    // The canonical configuration's class and text, which stay the same from run to run
+    private static byte[] fingerprint(Configuration canonical)
+    {
+        return (canonical.getClass().getName() + "\n" + canonical).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // A 64 bit FNV-1a hash, mixed so the low bits pick slots well
+    private static long hash(byte[] fingerprint)
+    {
+        long h = 0xCBF29CE484222325L;
+        for(byte b : fingerprint) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        index.force();
+        indexChannel.close();
+        lock.release();
+        data.close();
+    }
+}
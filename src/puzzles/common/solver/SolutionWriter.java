@@ -0,0 +1,73 @@
+package puzzles.common.solver;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes the steps of a solution as it walks the path once, through a buffer,
+ * so printing costs time in proportion to what is printed.
+ * <ul>
+ *     <li>BOARDS prints every configuration in full, as the solvers always have.</li>
+ *     <li>MOVES prints the start in full and then only the move made at each
+ *     step, as described by {@link Configuration#describeMove(Configuration)}.</li>
+ * </ul>
+ */
+public class SolutionWriter {
+    /** How each step is printed */
+    public enum Format { BOARDS, MOVES }
+
+    private final PrintWriter out;
+    private final Format format;
+
+    /**
+     * Creates a writer that prints to standard output
+     * @param format how each step is printed
+     */
+    public SolutionWriter(Format format)
+    {
+        this(new OutputStreamWriter(System.out), format);
+    }
+
+    /**
+     * Creates a writer
+     * @param out where the steps go, it is flushed after each solution but never closed
+     * @param format how each step is printed
+     */
+    public SolutionWriter(Writer out, Format format)
+    {
+        this.out = new PrintWriter(new BufferedWriter(out));
+        this.format = format;
+    }
+
+    /**
+     * Prints each step of a path found by one of the solvers
+     * @param path the solution, null if there is none
+     */
+    public void write(List<Configuration> path)
+    {
+        if(path == null) {
+            out.println("No solution");
+        }
+        else
+        {
+            //Iterating once keeps linked lists linear
+            Iterator<Configuration> steps = path.iterator();
+            Configuration prev = null;
+            for(int i = 0; steps.hasNext(); i++)
+            {
+                Configuration curr = steps.next();
+                out.print("Step ");
+                out.print(i);
+                out.print(": ");
+                out.print(format == Format.MOVES && prev != null ? curr.describeMove(prev) : curr.toString());
+                out.println();
+                prev = curr;
+            }
+        }
+        out.flush();
+    }
+}
@@ -1,10 +1,16 @@
 package puzzles.common.solver;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.function.Consumer;
 
 public class Solver {
+    /** How many configurations are expanded between checks of the time limit */
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+
     /**
      * Solves using a Breadth first search
      * Prints the number of configurations created and the number of unique configurations
@@ -13,114 +19,436 @@ public class Solver {
      */
     public static LinkedList<Configuration> BFSSolver(Configuration start)
     {
-        //counter for whenever a config is made during this
-        int configCount = 0;
-        //counter for the unique configs
-        int unique = 0;
+        SearchOutcome outcome = Search(start, Long.MAX_VALUE, Long.MAX_VALUE, null);
+        //Printing the configuration counts
+        System.out.println("Total configs: " + outcome.configCount());
+        System.out.println("Unique configs: " + outcome.unique());
+        return outcome.path();
+    }
+    //Helper function that calls the solver and prints the solution using the linkedlist generated
+    public static void PrintBFSSolution(Configuration start)
+    {
+        PrintPath(BFSSolver(start));
+    }
+    //Prints each step of a path found by one of the solvers
+    public static void PrintPath(LinkedList<Configuration> path)
+    {
+        new SolutionWriter(SolutionWriter.Format.BOARDS).write(path);
+    }
+
+    /**The same solver but without the connfig messages*/
+    public static LinkedList<Configuration> ModelBFSSolver(Configuration start)
+    {
+        return Search(start, Long.MAX_VALUE, Long.MAX_VALUE, null).path();
+    }
+
+    /**
+     * The same solver without the config messages, reporting to a listener instead
+     * @param start the starting configuration
+     * @param listener told how the search is going and how it ended
+     * @return List of the path from the start to the end, null if there is none
+     */
+    public static LinkedList<Configuration> ModelBFSSolver(Configuration start, SearchListener listener)
+    {
+        return Search(start, Long.MAX_VALUE, Long.MAX_VALUE, listener).path();
+    }
+
+    /**
+     * The same solver, but it gives up once it has found too many configurations or
+     * run too long, so one hard puzzle cannot hold up a batch of them
+     * Nothing is printed, the counts are in the outcome
+     * @param start the starting configuration
+     * @param maxUnique the most unique configurations to keep, which bounds the memory used
+     * @param timeLimitNanos the longest to search for, in nanoseconds
+     * @return how the search ended
+     */
+    public static SearchOutcome LimitedBFSSolver(Configuration start, long maxUnique, long timeLimitNanos)
+    {
+        return Search(start, maxUnique, timeLimitNanos, null);
+    }
+
+    /**
+     * The limited solver, reporting to a listener as well
+     * @param start the starting configuration
+     * @param maxUnique the most unique configurations to keep, which bounds the memory used
+     * @param timeLimitNanos the longest to search for, in nanoseconds
+     * @param listener told how the search is going and how it ended
+     * @return how the search ended
+     */
+    public static SearchOutcome LimitedBFSSolver(Configuration start, long maxUnique, long timeLimitNanos, SearchListener listener)
+    {
+        return Search(start, maxUnique, timeLimitNanos, listener);
+    }
+
+    //Picks the search for the kind of configuration
+    private static SearchOutcome Search(Configuration start, long maxUnique, long timeLimitNanos, SearchListener listener)
+    {
+        //Every search also reports over JMX when it is turned on
+        listener = JmxSearchListener.attach(listener);
+        //Configurations that can be packed search on their keys instead
+        if(start instanceof KeyedConfiguration keyed) {
+            return KeyedBFSSolver(keyed, maxUnique, timeLimitNanos, listener);
+        }
+        return ObjectBFSSolver(start, maxUnique, timeLimitNanos, listener);
+    }
+
+    /**
+     * Checks the limits of a search, the clock only every so often as reading it is not free
+     * @param expanded how many configurations have been expanded
+     * @param unique how many unique configurations have been found
+     * @param maxUnique the most unique configurations allowed
+     * @param startTime when the search started, from System.nanoTime
+     * @param timeLimitNanos the longest the search may run
+     * @return the limit that was passed, null if the search can go on
+     */
+    private static SearchOutcome.Status CheckLimits(long expanded, long unique, long maxUnique, long startTime, long timeLimitNanos)
+    {
+        if(unique > maxUnique) {
+            return SearchOutcome.Status.STATE_LIMIT;
+        }
+        if(timeLimitNanos != Long.MAX_VALUE && expanded % CLOCK_CHECK_INTERVAL == 0
+                && System.nanoTime() - startTime > timeLimitNanos) {
+            return SearchOutcome.Status.TIME_LIMIT;
+        }
+        return null;
+    }
+
+    /**
+     * Turns a path of canonical configurations into a path from the real start.
+     * Symmetric configurations have symmetric neighbors, so from each real step one of
+     * the neighbors has the next canonical configuration as its own canonical form.
+     * @param start the real starting configuration
+     * @param canonicalPath the path the search found over canonical configurations
+     * @return the same moves made from start
+     */
+    static LinkedList<Configuration> UnfoldPath(Configuration start, LinkedList<Configuration> canonicalPath)
+    {
+        LinkedList<Configuration> path = new LinkedList<>();
+        path.add(start);
+        Configuration curr = start;
+        Iterator<Configuration> steps = canonicalPath.iterator();
+        steps.next();
+        while(steps.hasNext())
+        {
+            curr = StepToward(curr, steps.next());
+            path.add(curr);
+        }
+        return path;
+    }
+
+    /**
+     * Finds the move from a configuration to one with the given canonical form
+     * @param curr the configuration to move from
+     * @param canonicalNext the canonical form of where to move
+     * @return the first neighbor of curr with that canonical form, null if there is none
+     */
+    static Configuration StepToward(Configuration curr, Configuration canonicalNext)
+    {
+        for(Configuration neighbor : curr.getNeighbors())
+        {
+            if(neighbor.getCanonical().equals(canonicalNext)) {
+                return neighbor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The breadth first search over configuration objects
+     * Searches over canonical configurations, so symmetric ones are only visited once
+     * @param start the starting configuration
+     * @param maxUnique the most unique configurations to keep
+     * @param timeLimitNanos the longest to search for
+     * @param listener told how the search is going, null if nothing is listening
+     * @return how the search ended, with the path from the start to the end if there is one
+     */
+    private static SearchOutcome ObjectBFSSolver(Configuration start, long maxUnique, long timeLimitNanos, SearchListener listener)
+    {
+        long startTime = System.nanoTime();
+        SearchMetrics metrics = listener == null ? null : new SearchMetrics();
         //Hash for predecessor map
         HashMap<Configuration, Configuration> predmap = new HashMap<>();
         //Setting up the predecessor map and queue
-        predmap.put(start, null);
+        Configuration canonicalStart = start.getCanonical();
+        predmap.put(canonicalStart, null);
         Queue<Configuration> vistingQueue = new LinkedList<>();
-        vistingQueue.offer(start);
+        //Leaving a dead start out of the queue makes the search end at once with no solution
+        if(!canonicalStart.isDead()) {
+            vistingQueue.offer(canonicalStart);
+        }
+        //Visits each neighbor, one object reused for every expansion
+        ObjectExpansion expansion = new ObjectExpansion(predmap, vistingQueue, metrics != null);
 
         //Loops through for the queue and checks if the solution is reached
-        while(!vistingQueue.isEmpty() && !vistingQueue.peek().isSolution())
+        long expanded = 0;
+        SearchOutcome.Status stopped = null;
+        while(stopped == null && !vistingQueue.isEmpty() && !vistingQueue.peek().isSolution())
         {
-            //Process the front of the queue
-            Configuration curr = vistingQueue.remove();
-            //Process the neighbors of the front
-            for(Configuration neighbor : curr.getNeighbors())
+            long expandStart = metrics == null ? 0 : System.nanoTime();
+            //Process the front of the queue and its neighbors
+            expansion.curr = vistingQueue.remove();
+            expansion.curr.forEachNeighbor(expansion);
+            expanded++;
+            if(metrics != null)
             {
-                //Add a count to for a generated config
-                configCount++;
-                //Checks for visitation
-                if(!predmap.containsKey(neighbor))
-                {
-                    //adds a count for an unique generated config
-                    unique++;
-                    //Then adds the neighbors to predecessor map and queue
-                    predmap.put(neighbor, curr);
-                    vistingQueue.offer(neighbor);
+                metrics.expansion(System.nanoTime() - expandStart, vistingQueue.size());
+                if(expanded % SearchMetrics.PROGRESS_INTERVAL == 0) {
+                    metrics.update(expansion.configCount, predmap.size(), expansion.pruned, ObjectMapBytes(predmap.size()), expansion.hashingNanos);
+                    listener.searchProgress(metrics);
                 }
             }
+            stopped = CheckLimits(expanded, expansion.unique, maxUnique, startTime, timeLimitNanos);
         }
-        //Printing the configuration counts
-        System.out.println("Total configs: " + configCount);
-        System.out.println("Unique configs: " + unique);
-        //No solution
-        if(vistingQueue.isEmpty()) {
-            return null;
+        LinkedList<Configuration> path = null;
+        if(stopped == null && vistingQueue.isEmpty()) {
+            stopped = SearchOutcome.Status.NO_SOLUTION;
         }
-        //Creating the list of the path
-        LinkedList<Configuration> path = new LinkedList<>();
-        path.add(0, vistingQueue.peek());
-        Configuration prev = predmap.get( vistingQueue.peek());
-        //Adding the previous until the start is found
-        while( prev != null)
+        else if(stopped == null)
         {
-            path.add(0, prev);
-            prev = predmap.get(prev);
+            stopped = SearchOutcome.Status.SOLVED;
+            //Creating the list of the path
+            path = new LinkedList<>();
+            path.addFirst(vistingQueue.peek());
+            Configuration prev = predmap.get( vistingQueue.peek());
+            //Adding the previous until the start is found
+            while( prev != null)
+            {
+                path.addFirst(prev);
+                prev = predmap.get(prev);
+            }
+            path = UnfoldPath(start, path);
         }
-        return path;
+        if(metrics != null) {
+            metrics.update(expansion.configCount, predmap.size(), expansion.pruned, ObjectMapBytes(predmap.size()), expansion.hashingNanos);
+            listener.searchFinished(metrics, stopped);
+        }
+        return new SearchOutcome(path, expansion.configCount, expansion.unique, stopped);
     }
-    //Helper function that calls the solver and prints the solution using the linkedlist generated
-    public static void PrintBFSSolution(Configuration start)
+
+    /**
+     * Estimates the heap a HashMap of configurations takes, not counting the configurations
+     * @param entries the number of entries
+     * @return 32 bytes per entry and 8 per table slot, at the default load factor
+     */
+    private static long ObjectMapBytes(long entries)
     {
-        LinkedList<Configuration> path = BFSSolver(start);
-        if(path == null)
-        {
-            System.out.println("No solution");
-            return;
+        return entries * 32 + Long.highestOneBit(Math.max(1, entries * 4 / 3) * 2 - 1) * 8;
+    }
+
+    /** Records each neighbor of the configuration being expanded */
+    private static class ObjectExpansion implements Consumer<Configuration> {
+        private final HashMap<Configuration, Configuration> predmap;
+        private final Queue<Configuration> vistingQueue;
+        /** whether to time the hashing of each neighbor */
+        private final boolean timed;
+        /** the configuration being expanded */
+        private Configuration curr;
+        //counter for whenever a config is made during this
+        private int configCount;
+        //counter for the unique configs
+        private int unique;
+        //counter for the unique configs that were dead and not queued
+        private int pruned;
+        //time spent hashing neighbors and checking the predecessor map
+        private long hashingNanos;
+
+        ObjectExpansion(HashMap<Configuration, Configuration> predmap, Queue<Configuration> vistingQueue, boolean timed) {
+            this.predmap = predmap;
+            this.vistingQueue = vistingQueue;
+            this.timed = timed;
         }
-        for(int i = 0; i < path.size(); i ++)
-        {
-            System.out.printf("Step %d: %s%n", i, path.get(i).toString());
+
+        @Override
+        public void accept(Configuration generated) {
+            long hashStart = timed ? System.nanoTime() : 0;
+            //Add a count to for a generated config
+            configCount++;
+            Configuration neighbor = generated.getCanonical();
+            //Checks for visitation
+            if(!predmap.containsKey(neighbor))
+            {
+                //adds a count for an unique generated config
+                unique++;
+                //Then adds the neighbors to predecessor map, and to the queue unless they can never be solved
+                predmap.put(neighbor, curr);
+                if(neighbor.isDead()) {
+                    pruned++;
+                }
+                else {
+                    vistingQueue.offer(neighbor);
+                }
+            }
+            if(timed) {
+                hashingNanos += System.nanoTime() - hashStart;
+            }
         }
     }
 
-    /**The same solver but without the connfig messages*/
-    public static LinkedList<Configuration> ModelBFSSolver(Configuration start)
+    /**
+     * The same breadth first search, but the visited set, predecessor map and queue
+     * only hold packed keys. Configurations are rebuilt from their key when they are
+     * expanded, so they can be collected as soon as their neighbors are queued.
+     * Visits configurations in the same order as BFSSolver, so the path is the same.
+     * Keys are always of canonical configurations. Puzzles that can undo their moves
+     * only store the code of the move that made each key instead of its parent's key.
+     * @param start the starting configuration
+     * @param maxUnique the most unique configurations to keep
+     * @param timeLimitNanos the longest to search for
+     * @param listener told how the search is going, null if nothing is listening
+     * @return how the search ended, with the path from the start to the end if there is one
+     */
+    private static SearchOutcome KeyedBFSSolver(KeyedConfiguration start, long maxUnique, long timeLimitNanos, SearchListener listener)
     {
-        //Hash for predecessor map
-        HashMap<Configuration, Configuration> predmap = new HashMap<>();
-        //Setting up the predecessor map and queue
-        predmap.put(start, null);
-        Queue<Configuration> vistingQueue = new LinkedList<>();
-        vistingQueue.offer(start);
+        long startTime = System.nanoTime();
+        SearchMetrics metrics = listener == null ? null : new SearchMetrics();
+        int width = start.getKeyLength();
+        boolean moveCodes = start instanceof ReversibleConfiguration;
+        KeyTable predmap = new KeyTable(width, moveCodes);
+        KeyQueue vistingQueue = new KeyQueue(width);
+        //Use the puzzle's own hashes if it keeps them, decided once so every key is hashed the same way
+        boolean configHashes = start.getKeyHash() != 0;
+        KeyedExpansion expansion = new KeyedExpansion(predmap, vistingQueue, width, configHashes, moveCodes, metrics != null);
+        long[] currKey = expansion.currKey;
+        KeyedConfiguration canonicalStart = (KeyedConfiguration) start.getCanonical();
+        canonicalStart.writeKey(currKey, 0);
+        if(moveCodes) {
+            predmap.putIfAbsent(currKey, 0, expansion.hashOf(canonicalStart, currKey), ReversibleConfiguration.NO_MOVE);
+        }
+        else {
+            predmap.putIfAbsent(currKey, 0, expansion.hashOf(canonicalStart, currKey), null, 0);
+        }
+        //The start's key is visited either way, but only queued if it might still be solved
+        if(!canonicalStart.isDead()) {
+            vistingQueue.offer(currKey, 0);
+        }
 
-        //Loops through for the queue and checks if the solution is reached
-        while(!vistingQueue.isEmpty() && !vistingQueue.peek().isSolution())
+        KeyedConfiguration curr = null;
+        long expanded = 0;
+        SearchOutcome.Status stopped = null;
+        while(stopped == null && !vistingQueue.isEmpty())
         {
-            //Process the front of the queue
-            Configuration curr = vistingQueue.remove();
-            //Process the neighbors of the front
-            for(Configuration neighbor : curr.getNeighbors())
-            { 
-                //Checks for visitation
-                if(!predmap.containsKey(neighbor))
-                {
-                    //Then adds the neighbors to predecessor map and queue
-                    predmap.put(neighbor, curr);
-                    vistingQueue.offer(neighbor);
+            long expandStart = metrics == null ? 0 : System.nanoTime();
+            //Rebuild the front of the queue and stop if it is the solution
+            vistingQueue.poll(currKey, 0);
+            curr = start.fromKey(currKey, 0);
+            if(curr.isSolution()) {
+                break;
+            }
+            curr.forEachNeighbor(expansion);
+            curr = null;
+            expanded++;
+            if(metrics != null)
+            {
+                metrics.expansion(System.nanoTime() - expandStart, vistingQueue.size());
+                if(expanded % SearchMetrics.PROGRESS_INTERVAL == 0) {
+                    metrics.update(expansion.configCount, predmap.size(), expansion.pruned, predmap.footprintBytes(), expansion.hashingNanos);
+                    listener.searchProgress(metrics);
                 }
             }
+            stopped = CheckLimits(expanded, expansion.unique, maxUnique, startTime, timeLimitNanos);
         }
-        //No solution
-        if(vistingQueue.isEmpty()) {
-            return null;
+        LinkedList<Configuration> path = null;
+        if(stopped == null && curr == null) {
+            stopped = SearchOutcome.Status.NO_SOLUTION;
         }
-        //Creating the list of the path
-        LinkedList<Configuration> path = new LinkedList<>();
-        path.add(0, vistingQueue.peek());
-        Configuration prev = predmap.get( vistingQueue.peek());
-        //Adding the previous until the start is found
-        while( prev != null)
+        else if(stopped == null)
         {
-            path.add(0, prev);
-            prev = predmap.get(prev);
+            stopped = SearchOutcome.Status.SOLVED;
+            path = new LinkedList<>();
+            path.addFirst(curr);
+            if(moveCodes)
+            {
+                //Undoing the moves back to the start
+                int move;
+                while((move = predmap.getMove(currKey, 0, expansion.hashOf(curr, currKey))) != ReversibleConfiguration.NO_MOVE)
+                {
+                    curr = ((ReversibleConfiguration) curr).undoMove(move);
+                    Arrays.fill(currKey, 0);
+                    curr.writeKey(currKey, 0);
+                    path.addFirst(curr);
+                }
+            }
+            else
+            {
+                //Walking the parent keys back to the start
+                while(predmap.getParent(currKey, 0, expansion.hashOf(curr, currKey), currKey, 0))
+                {
+                    curr = start.fromKey(currKey, 0);
+                    path.addFirst(curr);
+                }
+            }
+            path = UnfoldPath(start, path);
         }
-        return path;
+        if(metrics != null) {
+            metrics.update(expansion.configCount, predmap.size(), expansion.pruned, predmap.footprintBytes(), expansion.hashingNanos);
+            listener.searchFinished(metrics, stopped);
+        }
+        return new SearchOutcome(path, expansion.configCount, expansion.unique, stopped);
     }
 
+    /** Records the key of each neighbor of the configuration being expanded */
+    private static class KeyedExpansion implements Consumer<Configuration> {
+        private final KeyTable predmap;
+        private final KeyQueue vistingQueue;
+        /** the key of the configuration being expanded */
+        private final long[] currKey;
+        /** scratch space for a neighbor's key */
+        private final long[] neighborKey;
+        /** whether keys are hashed with the configurations' own hashes */
+        private final boolean configHashes;
+        /** whether to store move codes instead of parent keys */
+        private final boolean moveCodes;
+        /** whether to time the hashing of each neighbor */
+        private final boolean timed;
+        private int configCount;
+        private int unique;
+        /** unique neighbors that were dead and not queued */
+        private int pruned;
+        /** time spent packing, hashing and looking up neighbors */
+        private long hashingNanos;
+
+        KeyedExpansion(KeyTable predmap, KeyQueue vistingQueue, int width, boolean configHashes, boolean moveCodes, boolean timed) {
+            this.predmap = predmap;
+            this.vistingQueue = vistingQueue;
+            this.currKey = new long[width];
+            this.neighborKey = new long[width];
+            this.configHashes = configHashes;
+            this.moveCodes = moveCodes;
+            this.timed = timed;
+        }
+
+        // Gets the hash of a configuration whose key is already written out
+        long hashOf(KeyedConfiguration config, long[] key) {
+            return configHashes ? config.getKeyHash() : predmap.hash(key, 0);
+        }
+
+        @Override
+        public void accept(Configuration neighbor) {
+            long hashStart = timed ? System.nanoTime() : 0;
+            configCount++;
+            KeyedConfiguration keyed = (KeyedConfiguration) neighbor.getCanonical();
+            //Keys can shrink as the puzzle is solved, so the whole width is cleared first
+            Arrays.fill(neighborKey, 0);
+            keyed.writeKey(neighborKey, 0);
+            //Only adds to the queue if it was not visited yet
+            long hash = hashOf(keyed, neighborKey);
+            boolean added = moveCodes
+                    ? predmap.putIfAbsent(neighborKey, 0, hash, ((ReversibleConfiguration) keyed).getMoveCode())
+                    : predmap.putIfAbsent(neighborKey, 0, hash, currKey, 0);
+            if(added)
+            {
+                unique++;
+                //Remembered as visited, but never expanded if it can never be solved
+                if(keyed.isDead()) {
+                    pruned++;
+                }
+                else {
+                    vistingQueue.offer(neighborKey, 0);
+                }
+            }
+            if(timed) {
+                hashingNanos += System.nanoTime() - hashStart;
+            }
+        }
+    }
 }
@@ -1,4 +1,5 @@
 package puzzles.hoppers.gui;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -9,6 +10,8 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.GridPane;
 import javafx.stage.FileChooser;
+import puzzles.common.BoardUpdate;
+import puzzles.common.Coordinates;
 import puzzles.common.Observer;
 import puzzles.hoppers.model.HoppersModel;
 
@@ -18,9 +21,10 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashMap;
 
-public class HoppersGUI extends Application implements Observer<HoppersModel, String> {
+public class HoppersGUI extends Application implements Observer<HoppersModel, BoardUpdate> {
     /** The size of all icons, in square dimension */
     private final static int ICON_SIZE = 75;
     /** the font size for labels and buttons */
@@ -43,7 +47,11 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
     private Button loadButton;
     private Button hintButton;
     private Button resetButton;
+    private Button solveButton;
+    private Button cancelButton;
     private Label statusLabel;
+    // The image on each board button, kept so updates only swap the images that changed
+    private ImageView[][] cellViews;
 
     private boolean initialized;
 
@@ -78,7 +86,8 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
         this.initialized = false;
         createImageMap(); // Corresponds each char with an image
         String filename = getParameters().getRaw().get(0);
-        this.model = new HoppersModel(filename);
+        // Hints and solves search in the background and report back on the JavaFX thread
+        this.model = new HoppersModel(filename, Platform::runLater);
         this.model.addObserver(this);
     }
 
@@ -88,7 +97,7 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
 
         // TOP has status
         // CENTER has board
-        // BOTTOM has 3 buttons
+        // BOTTOM has 5 buttons
         mainPane = new BorderPane();
 
         // Create status label
@@ -106,8 +115,15 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
         resetButton.setOnAction(e -> this.model.reset());
         // Hint
         hintButton = new Button("Hint");
-        hintButton.setOnAction(e -> this.model.hint());
-        FlowPane bottom = new FlowPane(loadButton, resetButton, hintButton);
+        hintButton.setOnAction(e -> this.model.requestHint());
+        // Solve
+        solveButton = new Button("Solve");
+        solveButton.setOnAction(e -> this.model.requestSolve());
+        // Cancel, only enabled while searching
+        cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(e -> this.model.cancel());
+        cancelButton.setDisable(true);
+        FlowPane bottom = new FlowPane(loadButton, resetButton, hintButton, solveButton, cancelButton);
         bottom.setAlignment(Pos.CENTER);
         mainPane.setBottom(bottom);
 
@@ -120,18 +136,32 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
         stage.show();
 
         initialized = true;
-        update(this.model, "Loaded: hoppers-4.txt");
+        update(this.model, new BoardUpdate("Loaded: hoppers-4.txt", true, Collections.emptyList()));
     }
 
     @Override
-    public void update(HoppersModel hoppersModel, String msg) {
+    public void update(HoppersModel hoppersModel, BoardUpdate update) {
         if (!initialized) return;
 
         // Update status message
-        statusLabel.setText(msg);
+        statusLabel.setText(update.message());
+        cancelButton.setDisable(!hoppersModel.isSearching());
 
-        // Update frog board
+        // Update frog board, the buttons are only made when a board is loaded
+        if (update.newBoard() || cellViews == null) {
+            buildBoard(hoppersModel);
+            return;
+        }
+        if (!update.changed().isEmpty()) {
+            char[][] board = hoppersModel.getBoard();
+            for (Coordinates cell : update.changed()) {
+                cellViews[cell.row()][cell.col()].setImage(IMAGES.get(board[cell.row()][cell.col()]));
+            }
+        }
+    }
 
+    // Makes a new GridPane of buttons for the loaded board
+    private void buildBoard(HoppersModel hoppersModel) {
         // grab board, width, and height
         int height = hoppersModel.getHeight();
         int width = hoppersModel.getWidth();
@@ -139,10 +169,12 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
 
         // iterate and make new GridPane from board
         GridPane buttonBoard = new GridPane();
+        cellViews = new ImageView[height][width];
         for (int i = 0; i < height; i++) {
             for (int j = 0; j < width; j++) {
                 Button button = new Button();
-                button.setGraphic(new ImageView(IMAGES.get(board[i][j])));
+                cellViews[i][j] = new ImageView(IMAGES.get(board[i][j]));
+                button.setGraphic(cellViews[i][j]);
                 button.setMinSize(ICON_SIZE, ICON_SIZE);
                 button.setMaxSize(ICON_SIZE, ICON_SIZE);
 
@@ -0,0 +1,230 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.BoardSymmetries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The fixed layout of a hoppers board: its dimensions and the mapping between
+ * the playable cells (every cell not marked as water) and the bit positions
+ * {@link HoppersConfig} uses to store its frogs, the random keys it hashes
+ * them with, every hop the board allows, and the board's symmetries. One layout is built per loaded file
+ * and shared by every config that comes from it.
+ */
+final class HoppersBoard {
+    /** the most playable cells that two longs can hold */
+    static final int MAX_CELLS = 128;
+    /** fixed so the same board always hashes the same way */
+    private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+
+    /** number of columns */
+    final int width;
+    /** number of rows */
+    final int height;
+    /** number of playable cells */
+    final int cellCount;
+    /** bit index of each cell, indexed [row][col], -1 for water */
+    final int[][] cellIndex;
+    /** row of each bit index */
+    final int[] cellRow;
+    /** column of each bit index */
+    final int[] cellCol;
+    /** Zobrist key of a green frog on each cell */
+    final long[] greenZobrist;
+    /** Zobrist key of a red frog on each cell */
+    final long[] redZobrist;
+    /**
+     * the hops from each cell in direction order, as the cell jumped over and the
+     * cell landed on: the hops from cell c are at hopStart[c] up to hopStart[c + 1]
+     */
+    final int[] hopStart;
+    final int[] hopOver;
+    final int[] hopTo;
+    /**
+     * the cells a frog has to be on to ever jump a frog on each cell, as Lo/Hi masks.
+     * Frogs only move between cells joined by hops, so a frog can only ever jump a
+     * frog on one of these cells if it is already on one of the marked cells
+     */
+    final long[] jumperLo;
+    final long[] jumperHi;
+    /**
+     * the reflections and rotations that keep every playable cell and every hop,
+     * as cell maps: entry i is the cell whose frog ends up on cell i. The identity is first
+     */
+    final int[][] symmetries;
+
+    /**
+     * Number the playable cells of a board in row-major order.
+     *
+     * @param cells the board as read from the file
+     * @param water the character marking a cell that cannot be entered
+     */
+    HoppersBoard(char[][] cells, char water) {
+        this.height = cells.length;
+        this.width = height == 0 ? 0 : cells[0].length;
+        this.cellIndex = new int[height][width];
+
+        int count = 0;
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                cellIndex[i][j] = cells[i][j] == water ? -1 : count++;
+            }
+        }
+        if (count > MAX_CELLS) {
+            throw new IllegalArgumentException("Board has " + count +
+                    " playable cells, at most " + MAX_CELLS + " are supported");
+        }
+        this.cellCount = count;
+
+        this.cellRow = new int[count];
+        this.cellCol = new int[count];
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                if (cellIndex[i][j] >= 0) {
+                    cellRow[cellIndex[i][j]] = i;
+                    cellCol[cellIndex[i][j]] = j;
+                }
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(ZOBRIST_SEED);
+        this.greenZobrist = new long[count];
+        this.redZobrist = new long[count];
+        for (int cell = 0; cell < count; cell++) {
+            greenZobrist[cell] = random.nextLong();
+            redZobrist[cell] = random.nextLong();
+        }
+
+        // every cell has at most 8 hops
+        this.hopStart = new int[count + 1];
+        int[] over = new int[count * 8];
+        int[] to = new int[count * 8];
+        int hopCount = 0;
+        for (int cell = 0; cell < count; cell++) {
+            hopStart[cell] = hopCount;
+            HoppersConfig.DIRECTION[] directions = cellRow[cell] % 2 == 1 ?
+                    HoppersConfig.CORNER_DIRECTIONS : HoppersConfig.ALL_DIRECTIONS;
+            for (HoppersConfig.DIRECTION direction : directions) {
+                int overX = cellCol[cell] + HoppersConfig.OVER_X[direction.ordinal()];
+                int overY = cellRow[cell] + HoppersConfig.OVER_Y[direction.ordinal()];
+                over[hopCount] = indexOf(overX, overY);
+                to[hopCount] = indexOf(2 * overX - cellCol[cell], 2 * overY - cellRow[cell]);
+                if (over[hopCount] >= 0 && to[hopCount] >= 0) {
+                    hopCount++;
+                }
+            }
+        }
+        hopStart[count] = hopCount;
+        this.hopOver = Arrays.copyOf(over, hopCount);
+        this.hopTo = Arrays.copyOf(to, hopCount);
+
+        this.jumperLo = new long[count];
+        this.jumperHi = new long[count];
+        findJumpers();
+        this.symmetries = findSymmetries();
+    }
+
+    // Groups the cells a frog can move between, then marks the groups that can jump into each group
+    private void findJumpers() {
+        int[] group = new int[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            group[cell] = cell;
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            for (int hop = hopStart[cell]; hop < hopStart[cell + 1]; hop++) {
+                group[root(group, cell)] = root(group, hopTo[hop]);
+            }
+        }
+        // which groups have a hop over a cell of each group, one bit per group's root cell
+        long[] jumpingLo = new long[cellCount];
+        long[] jumpingHi = new long[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int jumper = root(group, cell);
+            for (int hop = hopStart[cell]; hop < hopStart[cell + 1]; hop++) {
+                int jumped = root(group, hopOver[hop]);
+                if (jumper < 64) {
+                    jumpingLo[jumped] |= 1L << jumper;
+                }
+                else {
+                    jumpingHi[jumped] |= 1L << (jumper - 64);
+                }
+            }
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            int jumped = root(group, cell);
+            for (int other = 0; other < cellCount; other++) {
+                int jumper = root(group, other);
+                boolean jumps = jumper < 64 ? (jumpingLo[jumped] & (1L << jumper)) != 0
+                        : (jumpingHi[jumped] & (1L << (jumper - 64))) != 0;
+                if (jumps && other < 64) {
+                    jumperLo[cell] |= 1L << other;
+                }
+                else if (jumps) {
+                    jumperHi[cell] |= 1L << (other - 64);
+                }
+            }
+        }
+    }
+
+    // Finds the cell that stands for a cell's group, shortening the way there
+    private static int root(int[] group, int cell) {
+        while (group[cell] != cell) {
+            group[cell] = group[group[cell]];
+            cell = group[cell];
+        }
+        return cell;
+    }
+
+    // Keeps the symmetries of the grid that map the cells and hops onto themselves
+    private int[][] findSymmetries() {
+        HashSet<Long> hops = new HashSet<>();
+        for (int cell = 0; cell < cellCount; cell++) {
+            for (int hop = hopStart[cell]; hop < hopStart[cell + 1]; hop++) {
+                hops.add(hopKey(cell, hopOver[hop], hopTo[hop]));
+            }
+        }
+
+        List<int[]> found = new ArrayList<>();
+        for (int[] squareMap : BoardSymmetries.squareMaps(height, width)) {
+            // map each cell to the cell it is read from, water cannot land on a cell
+            int[] cellMap = new int[cellCount];
+            boolean valid = true;
+            for (int cell = 0; cell < cellCount && valid; cell++) {
+                int source = squareMap[cellRow[cell] * width + cellCol[cell]];
+                cellMap[cell] = cellIndex[source / width][source % width];
+                valid = cellMap[cell] >= 0;
+            }
+            // every hop has to be a hop after the move too
+            for (long hop : hops) {
+                if (!valid) {
+                    break;
+                }
+                int from = (int) (hop >>> 16);
+                int over = (int) (hop >>> 8) & 0xFF;
+                int to = (int) hop & 0xFF;
+                valid = hops.contains(hopKey(cellMap[from], cellMap[over], cellMap[to]));
+            }
+            if (valid) {
+                found.add(cellMap);
+            }
+        }
+        return found.toArray(new int[0][]);
+    }
+
+    // Packs a hop into one number, cells fit in 8 bits each
+    private static long hopKey(int from, int over, int to) {
+        return ((long) from << 16) | (over << 8) | to;
+    }
+
+    // Gets the bit index of a cell, -1 if it is off the board or water
+    int indexOf(int xCoord, int yCoord) {
+        if (xCoord < 0 || xCoord >= width || yCoord < 0 || yCoord >= height) {
+            return -1;
+        }
+        return cellIndex[yCoord][xCoord];
+    }
+}
@@ -1,18 +1,22 @@
 package puzzles.hoppers.model;
 
+import puzzles.common.BoardFile;
+import puzzles.common.Coordinates;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.FixedDepthConfiguration;
+import puzzles.common.solver.Heuristic;
+import puzzles.common.solver.KeyedConfiguration;
+import puzzles.common.solver.ReversibleConfiguration;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 // Author: Colby Heaton
 
-public class HoppersConfig implements Configuration{
+public class HoppersConfig implements ReversibleConfiguration, FixedDepthConfiguration {
     /** a cell that has not been assigned a value yet */
     private final static char EMPTY = '.';
     /** a cell that cannot be entered */
@@ -22,21 +26,65 @@ public class HoppersConfig implements Configuration{
     /** a red frog cell */
     private final static char RED = 'R';
 
-    private static int WIDTH;
-    private static int HEIGHT;
-
-    // The current board / config
-    private char[][] board;
+    // The layout shared by every config of the same puzzle, so different puzzles can be solved at once
+    private final HoppersBoard layout;
+
+    // The current config, one bit per playable cell (see HoppersBoard).
+    // Cells 0-63 live in the Lo words, cells 64-127 in the Hi words.
+    private final long greenLo;
+    private final long greenHi;
+    private final long redLo;
+    private final long redHi;
+    // Zobrist hash of the frogs, the xor of the key of every frog on its cell
+    private final long zobrist;
+    // The hop that made this config, the cells it went from, over and to in 7 bits each
+    // then the symmetry the config was turned by, NO_MOVE if it was not made by a hop
+    private final int moveCode;
+    private static final int CELL_BITS = 7;
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+    private static final int SYMMETRY_SHIFT = 3 * CELL_BITS;
 
     // These getters are for creating the GUI's board
     public char[][] getBoard() {
+        char[][] board = new char[layout.height][layout.width];
+        for (int i = 0; i < layout.height; i++) {
+            for (int j = 0; j < layout.width; j++) {
+                int cell = layout.cellIndex[i][j];
+                if (cell < 0) {
+                    board[i][j] = INVAL;
+                }
+                else if (hasBit(greenLo, greenHi, cell)) {
+                    board[i][j] = GREEN;
+                }
+                else if (hasBit(redLo, redHi, cell)) {
+                    board[i][j] = RED;
+                }
+                else {
+                    board[i][j] = EMPTY;
+                }
+            }
+        }
         return board;
     }
-    public static int getHEIGHT() {
-        return HEIGHT;
+    public int getHEIGHT() {
+        return layout.height;
     }
-    public static int getWIDTH() {
-        return WIDTH;
+    public int getWIDTH() {
+        return layout.width;
+    }
+
+    // Every hop removes exactly one green frog, so the frogs left is the exact number of moves left
+    public static final Heuristic HEURISTIC = config -> ((HoppersConfig) config).getMovesLeft();
+
+    // Gets the number of green frogs left on the board
+    public int getGreenCount() {
+        return Long.bitCount(greenLo) + Long.bitCount(greenHi);
+    }
+
+    // Every hop removes one green frog and a solution has none left
+    @Override
+    public int getMovesLeft() {
+        return getGreenCount();
     }
 
     // Represents the directions that a frog can hop
@@ -51,249 +99,458 @@ public class HoppersConfig implements Configuration{
         NW
     }
 
+    // How far a hop goes to get over the frog in each direction, indexed by DIRECTION ordinal.
+    // The destination is twice as far.
+    static final int[] OVER_X = {0, 1, 2, 1, 0, -1, -2, -1};
+    static final int[] OVER_Y = {-2, -1, 0, 1, 2, 1, 0, -1};
+
+    // Frogs on odd rows can only go to four corners, frogs on even rows can go in any direction
+    static final DIRECTION[] CORNER_DIRECTIONS = {
+        DIRECTION.NE,
+        DIRECTION.SE,
+        DIRECTION.SW,
+        DIRECTION.NW
+    };
+    static final DIRECTION[] ALL_DIRECTIONS = DIRECTION.values();
+
     /**
      * Read in the hoppers puzzle from the filename.
      *
-     * @param filename the name of the file
-     * @throws IOException thrown if there is a problem opening or reading the file
+     * @param filename the name of the file, in either of BoardFile's formats
+     * @throws IOException thrown if there is a problem opening or reading the file,
+     * or it has a cell that is not empty, water or a frog
      */
     public HoppersConfig(String filename) throws IOException {
-        try (BufferedReader in = new BufferedReader(new FileReader(filename))) {
-            // read first line: rows cols
-            String[] fields = in.readLine().split("\\s+");
-            WIDTH = Integer.parseInt(fields[1]);
-            HEIGHT = Integer.parseInt(fields[0]);
-
-            // build the board
-            // initialize config
-            this.board = new char[HEIGHT][WIDTH];
-            for (int i = 0; i < HEIGHT; i++) {
-                // read next line
-                fields = in.readLine().split("\\s+");
-                for (int j = 0; j < WIDTH; j++) {
-                    board[i][j] = fields[j].charAt(0);
+        this(readBoard(filename));
+    }
+
+    /**
+     * Set up the hoppers puzzle from a board that has already been read, such as by BoardFile.
+     *
+     * @param cells the board, indexed [row][col]
+     * @throws IllegalArgumentException if its rows are different lengths or it has a cell
+     * that is not empty, water or a frog
+     */
+    public HoppersConfig(char[][] cells) {
+        String problem = checkBoard(cells);
+        if (problem != null) {
+            throw new IllegalArgumentException(problem);
+        }
+        int height = cells.length;
+        int width = height == 0 ? 0 : cells[0].length;
+        layout = new HoppersBoard(cells, INVAL);
+
+        // pack the frogs into the cell bits
+        long gLo = 0, gHi = 0, rLo = 0, rHi = 0;
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                int cell = layout.cellIndex[i][j];
+                if (cells[i][j] == GREEN) {
+                    gLo |= lowBit(cell);
+                    gHi |= highBit(cell);
+                }
+                else if (cells[i][j] == RED) {
+                    rLo |= lowBit(cell);
+                    rHi |= highBit(cell);
+                }
+            }
+        }
+        this.greenLo = gLo;
+        this.greenHi = gHi;
+        this.redLo = rLo;
+        this.redHi = rHi;
+        this.zobrist = hashFrogs();
+        this.moveCode = NO_MOVE;
+    }
+
+    // Reads a board from a file, in the text or binary format, and checks it
+    private static char[][] readBoard(String filename) throws IOException {
+        char[][] cells = BoardFile.read(filename);
+        String problem = checkBoard(cells);
+        if (problem != null) {
+            throw new IOException(filename + ": " + problem);
+        }
+        return cells;
+    }
+
+    // Describes what is wrong with a board, null if its rows are the same length and it only has known cells
+    private static String checkBoard(char[][] cells) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i].length != cells[0].length) {
+                return "row " + i + " has " + cells[i].length + " of " + cells[0].length + " cells";
+            }
+            for (int j = 0; j < cells[i].length; j++) {
+                char cell = cells[i][j];
+                if (cell != EMPTY && cell != INVAL && cell != GREEN && cell != RED) {
+                    return "unknown cell '" + cell + "' at row " + i + ", column " + j;
                 }
             }
         }
+        return null;
+    }
+
+    // Rebuilds a config of the same puzzle from its frog masks
+    private HoppersConfig(HoppersBoard layout, long greenLo, long greenHi, long redLo, long redHi) {
+        this(layout, greenLo, greenHi, redLo, redHi, NO_MOVE);
     }
 
-    // Checks if the given coord holds a green frog
-    private boolean isGreen(int xCoord, int yCoord) {
-        return (board[yCoord][xCoord] == GREEN);
+    // Rebuilds a config of the same puzzle from its frog masks, remembering the hop that made it
+    private HoppersConfig(HoppersBoard layout, long greenLo, long greenHi, long redLo, long redHi, int moveCode) {
+        this.layout = layout;
+        this.greenLo = greenLo;
+        this.greenHi = greenHi;
+        this.redLo = redLo;
+        this.redHi = redHi;
+        this.zobrist = hashFrogs();
+        this.moveCode = moveCode;
+    }
+
+    // Computes the Zobrist hash from scratch, moves update it instead
+    private long hashFrogs() {
+        long hash = 0;
+        for (int cell = 0; cell < layout.cellCount; cell++) {
+            if (hasBit(greenLo, greenHi, cell)) {
+                hash ^= layout.greenZobrist[cell];
+            }
+            else if (hasBit(redLo, redHi, cell)) {
+                hash ^= layout.redZobrist[cell];
+            }
+        }
+        return hash;
+    }
+
+    // The bit for a cell in the Lo word, 0 if the cell lives in the Hi word
+    private static long lowBit(int cell) {
+        return cell < 64 ? 1L << cell : 0L;
+    }
+
+    // The bit for a cell in the Hi word, 0 if the cell lives in the Lo word
+    private static long highBit(int cell) {
+        return cell >= 64 ? 1L << (cell - 64) : 0L;
+    }
+
+    // Checks if a cell's bit is set in a Lo/Hi pair
+    private static boolean hasBit(long lo, long hi, int cell) {
+        return cell < 64 ? (lo & (1L << cell)) != 0 : (hi & (1L << (cell - 64))) != 0;
+    }
+
+    // Checks if the given cell holds a green frog
+    private boolean isGreen(int cell) {
+        return cell >= 0 && hasBit(greenLo, greenHi, cell);
+    }
+
+    // Checks if the given cell holds any frog
+    private boolean isFrog(int cell) {
+        return cell >= 0 && (hasBit(greenLo, greenHi, cell) || hasBit(redLo, redHi, cell));
     }
 
     // Checks if the given coord holds any frog
     public boolean isFrog(int xCoord, int yCoord) {
-        return (board[yCoord][xCoord] == GREEN || board[yCoord][xCoord] == RED);
+        return isFrog(layout.indexOf(xCoord, yCoord));
     }
 
     // Ensures there are no green frogs
     @Override
     public boolean isSolution() {
-        for (int i = 0; i < HEIGHT; i++) {
-            for (int j = 0; j < WIDTH; j++) {
-                if (isGreen(j, i)) {
-                    return false;
+        return greenLo == 0 && greenHi == 0;
+    }
+
+    // A green frog is stuck for good when no other frog is on a cell that could ever lead to jumping it (see HoppersBoard)
+    @Override
+    public boolean isDead() {
+        long frogsLo = greenLo | redLo;
+        long frogsHi = greenHi | redHi;
+        for (int word = 0; word < 2; word++) {
+            long greens = word == 0 ? greenLo : greenHi;
+            while (greens != 0) {
+                int green = word * 64 + Long.numberOfTrailingZeros(greens);
+                greens &= greens - 1;
+                if ((layout.jumperLo[green] & frogsLo & ~lowBit(green)) == 0
+                        && (layout.jumperHi[green] & frogsHi & ~highBit(green)) == 0) {
+                    return true;
                 }
             }
         }
-        return true;
+        return false;
     }
 
     @Override
     public Collection<Configuration> getNeighbors() {
         List<Configuration> successors = new ArrayList<>();
+        forEachNeighbor(successors::add);
+        return successors;
+    }
 
-        // loop thru all spots
-        for (int i = 0; i < HEIGHT; i++) {
-            for (int j = 0; j < WIDTH; j++) {
-
-                // if this spot is a frog
-                if (isFrog(j, i)) {
-
-                    // determine which directions to check
-                    DIRECTION[] directions;
-                    if (i % 2 == 1) {
-                        // can only go to four corners
-                        directions = new DIRECTION[]{
-                            DIRECTION.NE,
-                            DIRECTION.SE,
-                            DIRECTION.SW,
-                            DIRECTION.NW
-                        };
-                    }
-                    else {
-                        // can go in any direction
-                        directions = new DIRECTION[]{
-                            DIRECTION.N,
-                            DIRECTION.NE,
-                            DIRECTION.E,
-                            DIRECTION.SE,
-                            DIRECTION.S,
-                            DIRECTION.SW,
-                            DIRECTION.W,
-                            DIRECTION.NW
-                        };
-                    }
-
-                    // try to create configs for each direction
-                    for (int k = 0; k < directions.length; k++) {
-                        HoppersConfig newConfig = tryNewConfig(j, i, directions[k]);
-                        if (newConfig != null) {
-                            successors.add(newConfig);
-                        }
+    // Walks the board's hop table from every frog, a hop needs a green frog to jump and an empty cell to land on
+    @Override
+    public void forEachNeighbor(Consumer<? super Configuration> action) {
+        long frogsLo = greenLo | redLo;
+        long frogsHi = greenHi | redHi;
+        int[] hopStart = layout.hopStart;
+        int[] hopOver = layout.hopOver;
+        int[] hopTo = layout.hopTo;
+        // frogs in cell order, the Lo word then the Hi word
+        for (int word = 0; word < 2; word++) {
+            long frogs = word == 0 ? frogsLo : frogsHi;
+            while (frogs != 0) {
+                int from = word * 64 + Long.numberOfTrailingZeros(frogs);
+                frogs &= frogs - 1;
+                for (int hop = hopStart[from]; hop < hopStart[from + 1]; hop++) {
+                    int over = hopOver[hop];
+                    int to = hopTo[hop];
+                    if (hasBit(greenLo, greenHi, over) && !hasBit(frogsLo, frogsHi, to)) {
+                        action.accept(new HoppersConfig(this, from, over, to));
                     }
                 }
             }
         }
-
-        return successors;
     }
 
     public HoppersConfig tryNewConfig(int xCoord, int yCoord, DIRECTION direction) {
         // VALIDITY CHECK!
-        int[] destination = new int[2];
-        int[] halfway = new int[2];
+        // CHECK 0 = START HAS FROG
+        int from = layout.indexOf(xCoord, yCoord);
+        if (!isFrog(from)) {
+            return null;
+        }
 
         // generate steps based on directions
-        switch (direction) {
-            case N:
-                halfway[0] = xCoord;
-                halfway[1] = yCoord - 2;
-                destination[0] = xCoord;
-                destination[1] = yCoord - 4;
-                break;
-            case NE:
-                halfway[0] = xCoord + 1;
-                halfway[1] = yCoord - 1;
-                destination[0] = xCoord + 2;
-                destination[1] = yCoord - 2;
-                break;
-            case E:
-                halfway[0] = xCoord + 2;
-                halfway[1] = yCoord;
-                destination[0] = xCoord + 4;
-                destination[1] = yCoord;
-                break;
-            case SE:
-                halfway[0] = xCoord + 1;
-                halfway[1] = yCoord + 1;
-                destination[0] = xCoord + 2;
-                destination[1] = yCoord + 2;
-                break;
-            case S:
-                halfway[0] = xCoord;
-                halfway[1] = yCoord + 2;
-                destination[0] = xCoord;
-                destination[1] = yCoord + 4;
-                break;
-            case SW:
-                halfway[0] = xCoord - 1;
-                halfway[1] = yCoord + 1;
-                destination[0] = xCoord - 2;
-                destination[1] = yCoord + 2;
-                break;
-            case W:
-                halfway[0] = xCoord - 2;
-                halfway[1] = yCoord;
-                destination[0] = xCoord - 4;
-                destination[1] = yCoord;
-                break;
-            case NW:
-                halfway[0] = xCoord - 1;
-                halfway[1] = yCoord - 1;
-                destination[0] = xCoord - 2;
-                destination[1] = yCoord - 2;
-                break;
-        }
+        int overX = xCoord + OVER_X[direction.ordinal()];
+        int overY = yCoord + OVER_Y[direction.ordinal()];
 
         // CHECK 1 = HALFWAY VALID
-        if (OutOfBounds(halfway[0], halfway[1])) {
-            return null;
-        }
-
         // CHECK 2 = HALFWAY HAS FROG, NOT RED
-        if (!isGreen(halfway[0], halfway[1])) {
+        int over = layout.indexOf(overX, overY);
+        if (!isGreen(over)) {
             return null;
         }
 
         // CHECK 3 = DESTINATION VALID, AND NO FROG
-        if (OutOfBounds(destination[0], destination[1]) || isFrog(destination[0], destination[1])) {
+        int to = layout.indexOf(2 * overX - xCoord, 2 * overY - yCoord);
+        if (to < 0 || isFrog(to)) {
             return null;
         }
 
-        return new HoppersConfig(this, xCoord, yCoord, halfway, destination);
+        return new HoppersConfig(this, from, over, to);
     }
 
     // Checks if given coord is OOB
     public boolean OutOfBounds(int xCoord, int yCoord) {
-        return (xCoord < 0 || xCoord >= WIDTH || yCoord < 0 || yCoord >= HEIGHT);
+        return (xCoord < 0 || xCoord >= layout.width || yCoord < 0 || yCoord >= layout.height);
     }
 
-    // Copy constructor
-    private HoppersConfig(HoppersConfig other, int xCoord, int yCoord, int[] halfway, int[] destination){
-        // copy board
-        this.board = new char[HEIGHT][WIDTH];
-        for (int i = 0; i < HEIGHT; i++) {
-            for (int j = 0; j < WIDTH; j++) {
-                this.board[i][j] = other.board[i][j];
+    // Copy constructor, moves the frog on cell from over cell over to cell to
+    private HoppersConfig(HoppersConfig other, int from, int over, int to){
+        this.layout = other.layout;
+        long fromLo = lowBit(from), fromHi = highBit(from);
+        long toLo = lowBit(to), toHi = highBit(to);
+
+        // remove inbetween frog
+        long gLo = other.greenLo & ~lowBit(over);
+        long gHi = other.greenHi & ~highBit(over);
+        long rLo = other.redLo;
+        long rHi = other.redHi;
+        long hash = other.zobrist ^ layout.greenZobrist[over];
+
+        // move frog from start to destination
+        if (hasBit(gLo, gHi, from)) {
+            gLo = (gLo & ~fromLo) | toLo;
+            gHi = (gHi & ~fromHi) | toHi;
+            hash ^= layout.greenZobrist[from] ^ layout.greenZobrist[to];
+        }
+        else {
+            rLo = (rLo & ~fromLo) | toLo;
+            rHi = (rHi & ~fromHi) | toHi;
+            hash ^= layout.redZobrist[from] ^ layout.redZobrist[to];
+        }
+
+        this.greenLo = gLo;
+        this.greenHi = gHi;
+        this.redLo = rLo;
+        this.redHi = rHi;
+        this.zobrist = hash;
+        this.moveCode = from | over << CELL_BITS | to << (2 * CELL_BITS);
+    }
+
+    // The least image of the config under the board's symmetries, comparing cell by cell.
+    // It keeps the hop that made this config along with the symmetry, so undoing it gives this config's parent
+    @Override
+    public HoppersConfig getCanonical() {
+        int[][] symmetries = layout.symmetries;
+        int best = 0;
+        for (int i = 1; i < symmetries.length; i++) {
+            if (compareImages(symmetries[i], symmetries[best]) < 0) {
+                best = i;
             }
         }
+        if (best == 0) {
+            return this;
+        }
+        return transform(symmetries[best], moveCode == NO_MOVE ? NO_MOVE : moveCode | best << SYMMETRY_SHIFT);
+    }
 
-        // remove frog from start
-        char origFrog = this.board[yCoord][xCoord];
-        this.board[yCoord][xCoord] = EMPTY;
+    // Compares the config seen through two cell maps, first differing cell decides
+    private int compareImages(int[] a, int[] b) {
+        for (int cell = 0; cell < layout.cellCount; cell++) {
+            int diff = frogCode(a[cell]) - frogCode(b[cell]);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
 
-        // remove inbetween frog
-        this.board[halfway[1]][halfway[0]] = EMPTY;
+    // 0 for an empty cell, 1 for a red frog, 2 for a green frog
+    private int frogCode(int cell) {
+        if (hasBit(greenLo, greenHi, cell)) {
+            return 2;
+        }
+        return hasBit(redLo, redHi, cell) ? 1 : 0;
+    }
 
-        // place frog at destination
-        this.board[destination[1]][destination[0]] = origFrog;
+    // Makes the config seen through a cell map, with the given move code
+    private HoppersConfig transform(int[] cellMap, int moveCode) {
+        long gLo = 0, gHi = 0, rLo = 0, rHi = 0;
+        for (int cell = 0; cell < layout.cellCount; cell++) {
+            if (hasBit(greenLo, greenHi, cellMap[cell])) {
+                gLo |= lowBit(cell);
+                gHi |= highBit(cell);
+            }
+            else if (hasBit(redLo, redHi, cellMap[cell])) {
+                rLo |= lowBit(cell);
+                rHi |= highBit(cell);
+            }
+        }
+        return new HoppersConfig(layout, gLo, gHi, rLo, rHi, moveCode);
+    }
 
+    @Override
+    public int getMoveCode() {
+        return moveCode;
+    }
+
+    // Turns the frogs back through the symmetry in the code, then hops the frog back and puts the green frog back
+    @Override
+    public HoppersConfig undoMove(int moveCode) {
+        int[] cellMap = layout.symmetries[moveCode >>> SYMMETRY_SHIFT];
+        long gLo = 0, gHi = 0, rLo = 0, rHi = 0;
+        for (int cell = 0; cell < layout.cellCount; cell++) {
+            int original = cellMap[cell];
+            if (hasBit(greenLo, greenHi, cell)) {
+                gLo |= lowBit(original);
+                gHi |= highBit(original);
+            }
+            else if (hasBit(redLo, redHi, cell)) {
+                rLo |= lowBit(original);
+                rHi |= highBit(original);
+            }
+        }
+        int from = moveCode & CELL_MASK;
+        int over = (moveCode >>> CELL_BITS) & CELL_MASK;
+        int to = (moveCode >>> (2 * CELL_BITS)) & CELL_MASK;
+        if (hasBit(gLo, gHi, to)) {
+            gLo = (gLo & ~lowBit(to)) | lowBit(from);
+            gHi = (gHi & ~highBit(to)) | highBit(from);
+        }
+        else {
+            rLo = (rLo & ~lowBit(to)) | lowBit(from);
+            rHi = (rHi & ~highBit(to)) | highBit(from);
+        }
+        return new HoppersConfig(layout, gLo | lowBit(over), gHi | highBit(over), rLo, rHi);
+    }
+
+    // The key is the Lo masks, followed by the Hi masks on boards that need them
+    @Override
+    public int getKeyLength() {
+        return layout.cellCount > 64 ? 4 : 2;
+    }
+
+    @Override
+    public void writeKey(long[] dest, int offset) {
+        dest[offset] = greenLo;
+        dest[offset + 1] = redLo;
+        if (layout.cellCount > 64) {
+            dest[offset + 2] = greenHi;
+            dest[offset + 3] = redHi;
+        }
+    }
+
+    @Override
+    public HoppersConfig fromKey(long[] src, int offset) {
+        if (layout.cellCount > 64) {
+            return new HoppersConfig(layout, src[offset], src[offset + 2], src[offset + 1], src[offset + 3]);
+        }
+        return new HoppersConfig(layout, src[offset], 0, src[offset + 1], 0);
+    }
+
+    // Equal frogs always have equal Zobrist hashes, so it works for both
+    @Override
+    public long getKeyHash() {
+        return zobrist;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(zobrist);
+    }
+
+    // Describes a hop as the cell the frog left and the cell it landed on, read from the move code
+    @Override
+    public String describeMove(Configuration previous) {
+        if (!(previous instanceof HoppersConfig prev) || moveCode == NO_MOVE || moveCode >>> SYMMETRY_SHIFT != 0) {
+            return toString();
+        }
+        int from = moveCode & CELL_MASK;
+        int to = (moveCode >>> (2 * CELL_BITS)) & CELL_MASK;
+        // Only a hop made from the previous config has its cells in the same places
+        if (!hasBit(prev.greenLo | prev.redLo, prev.greenHi | prev.redHi, from)
+                || !hasBit(greenLo | redLo, greenHi | redHi, to)) {
+            return toString();
+        }
+        return new Coordinates(layout.cellRow[from], layout.cellCol[from]) + " -> "
+                + new Coordinates(layout.cellRow[to], layout.cellCol[to]);
     }
 
     @Override
     public String toString() {
-        String output = "";
-        for (int i = 0; i < HEIGHT + 2; i++) {
+        char[][] board = getBoard();
+        StringBuilder output = new StringBuilder((layout.height + 2) * (2 * layout.width + 4));
+        for (int i = 0; i < layout.height + 2; i++) {
 
             // Kind of a mess
-            for (int j = 0; j < WIDTH + 1; j++) {
+            for (int j = 0; j < layout.width + 1; j++) {
                 if (i == 0 && j >= 1) {
                     // print hori numbers
-                    output += " " + (j-1);
+                    output.append(' ').append(j - 1);
                 }
                 else if (i == 1 && j >= 1) {
                     // print hori dashes
-                    output += "--";
+                    output.append("--");
                 }
                 else if (j == 0 && i > 1) {
                     // print vert numbers
-                    output += (i-2) + "|";
+                    output.append(i - 2).append('|');
                 }
                 else if (j < 1 && i < 2) {
-                    output += "  ";
+                    output.append("  ");
                 }
                 else {
                     // Print the actual board vals
-                    output += " " + this.board[i - 2][j - 1];
+                    output.append(' ').append(board[i - 2][j - 1]);
                 }
             }
-            output += "\n";
+            output.append('\n');
 
         }
-        return output;
+        return output.toString();
     }
 
     @Override
     public boolean equals(Object other) {
         if (other instanceof HoppersConfig oHop) {
-            return Arrays.deepEquals(board, oHop.board);
+            return zobrist == oHop.zobrist &&
+                    greenLo == oHop.greenLo && greenHi == oHop.greenHi &&
+                    redLo == oHop.redLo && redHi == oHop.redHi;
         }
         return false;
     }
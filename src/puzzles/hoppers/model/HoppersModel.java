@@ -1,16 +1,23 @@
 package puzzles.hoppers.model;
 
+import puzzles.common.BoardUpdate;
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.SearchWorker;
+import puzzles.common.solver.SolutionCache;
+import puzzles.common.solver.SolutionStore;
 
 import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class HoppersModel {
+    /** how long a solve shows each step before making the next one */
+    public static final long SOLVE_STEP_MILLIS = 500;
+
     /** the collection of observers of this model */
-    private final List<Observer<HoppersModel, String>> observers = new LinkedList<>();
+    private final List<Observer<HoppersModel, BoardUpdate>> observers = new LinkedList<>();
 
     /** the current configuration */
     private HoppersConfig currentConfig;
@@ -21,6 +28,16 @@ public class HoppersModel {
     // When selecting coordinates
     private int[] selectedCoord;
 
+    // The board as the observers last saw it, null after a load so they rebuild everything
+    private char[][] shownBoard;
+
+    // Solutions found by earlier hints, kept until another puzzle is loaded
+    // Replaced rather than cleared on load, so a cancelled search still finishing cannot touch the new one
+    private SolutionCache solutions = new SolutionCache(SolutionStore.shared());
+
+    // Runs requested hints and solves off the caller's thread
+    private final SearchWorker worker;
+
 
     // Gets the board, used for updating buttons
     public char[][] getBoard() {
@@ -40,38 +57,111 @@ public class HoppersModel {
      *
      * @param observer the view
      */
-    public void addObserver(Observer<HoppersModel, String> observer) {
+    public void addObserver(Observer<HoppersModel, BoardUpdate> observer) {
         this.observers.add(observer);
     }
 
     /**
      * The model's state has changed (the counter), so inform the view via
-     * the update method
+     * the update method, along with the cells that changed since the last time
      */
     private void alertObservers(String msg) {
+        char[][] board = currentConfig.getBoard();
+        BoardUpdate update = BoardUpdate.between(msg, shownBoard, board);
+        shownBoard = board;
         for (var observer : observers) {
-            observer.update(this, msg);
+            observer.update(this, update);
         }
     }
 
     public HoppersModel(String filename) throws IOException {
+        this(filename, Runnable::run);
+    }
+
+    /**
+     * Creates a model that can search in the background
+     * @param filename the puzzle file
+     * @param notifier runs the background search's updates, a GUI passes its run later
+     */
+    public HoppersModel(String filename, Executor notifier) throws IOException {
         initialFile = filename;
         selectedCoord = null;
         currentConfig = new HoppersConfig(filename);
+        worker = new SearchWorker(notifier, failure -> alertObservers("Search failed: " + failure));
     }
 
     // Hint method
     public void hint() {
-        // Try to solve puzzle
-        Solver solver = new Solver();
-        LinkedList<Configuration> solution = solver.ModelBFSSolver(currentConfig);
+        worker.cancel();
+        // Try to solve puzzle, only searching what earlier hints did not
+        applyHint(solutions.nextStep(currentConfig));
+    }
+
+    // Hint method that searches in the background, observers are told how the search is going
+    public void requestHint() {
+        HoppersConfig start = currentConfig;
+        SolutionCache cache = solutions;
+        worker.submit(publisher -> {
+            Configuration next = cache.nextStep(start, searched ->
+                    publisher.publish(() -> alertObservers("Searching... " + searched + " configurations")));
+            return () -> applyHint(next);
+        });
+        alertObservers("Searching for a hint...");
+    }
+
+    // Solve method that searches in the background, then makes each move with a pause in between
+    public void requestSolve() {
+        HoppersConfig start = currentConfig;
+        SolutionCache cache = solutions;
+        worker.submit(publisher -> {
+            List<Configuration> steps = cache.pathFrom(start, searched ->
+                    publisher.publish(() -> alertObservers("Searching... " + searched + " configurations")));
+            if (steps == null) {
+                return () -> alertObservers("There is no solution from here!");
+            }
+            if (steps.isEmpty()) {
+                return () -> alertObservers("Solution reached.");
+            }
+            // Every step but the last is published, the last finishes the solve
+            for (int i = 0; i < steps.size() - 1; i++) {
+                HoppersConfig step = (HoppersConfig) steps.get(i);
+                String msg = "Step " + (i + 1) + " of " + steps.size();
+                publisher.publish(() -> {
+                    currentConfig = step;
+                    alertObservers(msg);
+                });
+                Thread.sleep(SOLVE_STEP_MILLIS);
+            }
+            HoppersConfig last = (HoppersConfig) steps.get(steps.size() - 1);
+            return () -> {
+                currentConfig = last;
+                alertObservers("Solved in " + steps.size() + " steps!");
+            };
+        });
+        alertObservers("Solving...");
+    }
+
+    // Cancels a requested hint or solve
+    public void cancel() {
+        if (worker.cancel()) {
+            alertObservers("Search cancelled.");
+        }
+    }
+
+    // True while a requested hint or solve has not finished
+    public boolean isSearching() {
+        return worker.isRunning();
+    }
+
+    // Moves to the next step of a hint, or says why there is none
+    private void applyHint(Configuration next) {
         selectedCoord = null;
 
         // If solution exits
-        if (solution != null) {
+        if (next != null) {
             // Advance to next step
-            if (solution.size() > 1) {
-                currentConfig = (HoppersConfig) solution.get(1);
+            if (next != currentConfig) {
+                currentConfig = (HoppersConfig) next;
                 // Alert
                 alertObservers("Next step!");
             }
@@ -87,6 +177,8 @@ public class HoppersModel {
 
     // Select method
     public void select(int row, int col) {
+        // Touching the board stops any hint or solve
+        worker.cancel();
         // If no place currently selected
         if (selectedCoord == null) {
             // Valid selection
@@ -176,9 +268,12 @@ public class HoppersModel {
 
     // Load
     public void load(String filename) {
+        worker.cancel();
         try {
             currentConfig = new HoppersConfig(filename);
             initialFile = filename;
+            solutions = new SolutionCache(SolutionStore.shared());
+            shownBoard = null;
             alertObservers("Loaded: " + filename.substring(filename.lastIndexOf("\\") + 1));
         }
         catch (IOException e) {
@@ -188,6 +283,7 @@ public class HoppersModel {
 
     // Reset
     public void reset() {
+        worker.cancel();
         try {
             currentConfig = new HoppersConfig(initialFile);
             alertObservers("Puzzle reset!");
@@ -1,5 +1,6 @@
 package puzzles.hoppers.ptui;
 
+import puzzles.common.BoardUpdate;
 import puzzles.common.Observer;
 import puzzles.hoppers.model.HoppersModel;
 import puzzles.chess.ptui.ChessPTUI;
@@ -8,7 +9,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Scanner;
 
-public class HoppersPTUI implements Observer<HoppersModel, String> {
+public class HoppersPTUI implements Observer<HoppersModel, BoardUpdate> {
     private HoppersModel model;
 
     public void init(String filename) throws IOException {
@@ -21,9 +22,9 @@ public class HoppersPTUI implements Observer<HoppersModel, String> {
     }
 
     @Override
-    public void update(HoppersModel model, String data) {
+    public void update(HoppersModel model, BoardUpdate data) {
         // for demonstration purposes
-        System.out.println(data);
+        System.out.println(data.message());
         System.out.println(model);
     }
 
@@ -1,24 +1,70 @@
 package puzzles.hoppers.solver;
 
 import puzzles.clock.ClockConfig;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.DepthFirstSolver;
+import puzzles.common.solver.ExternalSolver;
+import puzzles.common.solver.HeuristicSolver;
+import puzzles.common.solver.ParallelSolver;
+import puzzles.common.solver.SolutionStore;
+import puzzles.common.solver.SolutionWriter;
 import puzzles.common.solver.Solver;
 import puzzles.hoppers.model.HoppersConfig;
 
 import java.io.IOException;
+import java.util.LinkedList;
+import java.util.function.Supplier;
 
 public class Hoppers {
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Usage: java Hoppers filename");
+        // -moves at the end prints only the hop made at each step
+        boolean moves = args.length > 1 && args[args.length - 1].equals("-moves");
+        int options = moves ? args.length - 1 : args.length;
+        boolean threads = options == 2 && !args[1].equals("-dfs") && !args[1].equals("-external")
+                && !args[1].equals("-astar");
+        if (options < 1 || options > 2 || (threads && threadCount(args[1]) < 1)) {
+            System.out.println("Usage: java Hoppers filename [threads | -dfs | -external | -astar] [-moves]");
         }
         else {
             try {
                 HoppersConfig hopperConfig = new HoppersConfig(args[0]);
-                Solver.PrintBFSSolution(hopperConfig);
+                // search depth first with -dfs, level by level on disk with -external,
+                // guided by the puzzle's heuristic with -astar,
+                // or spread the search across threads if a count is given
+                Supplier<LinkedList<Configuration>> solver;
+                if (options == 2 && args[1].equals("-dfs")) {
+                    solver = () -> DepthFirstSolver.DFSSolver(hopperConfig);
+                }
+                else if (options == 2 && args[1].equals("-external")) {
+                    solver = () -> ExternalSolver.ExternalBFSSolver(hopperConfig);
+                }
+                else if (options == 2 && args[1].equals("-astar")) {
+                    solver = () -> HeuristicSolver.AStarSolver(hopperConfig, HoppersConfig.HEURISTIC);
+                }
+                else if (options == 2) {
+                    int count = threadCount(args[1]);
+                    solver = () -> ParallelSolver.ParallelBFSSolver(hopperConfig, count);
+                }
+                else {
+                    solver = () -> Solver.BFSSolver(hopperConfig);
+                }
+                // Boards already in the solution store are not solved again
+                LinkedList<Configuration> path = SolutionStore.lookupOrSolve(hopperConfig, solver);
+                new SolutionWriter(moves ? SolutionWriter.Format.MOVES : SolutionWriter.Format.BOARDS).write(path);
             }
             catch (IOException e) {
                 System.out.println("ERROR WITH FILE NAME");
             }
         }
     }
+
+    // The number of threads an argument asks for, 0 if it is not a number
+    private static int threadCount(String arg) {
+        try {
+            return Integer.parseInt(arg);
+        }
+        catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 }
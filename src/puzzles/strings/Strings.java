@@ -1,15 +1,22 @@
 package puzzles.strings;
 
+import puzzles.common.solver.BidirectionalSolver;
 import puzzles.common.solver.Solver;
 
 public class Strings {
     public static void main(String[] args) {
         if (args.length < 2) {
-            System.out.println(("Usage: java Strings start finish"));
+            System.out.println(("Usage: java Strings start finish [-b]"));
         } else {
             System.out.printf("Start: %s, End: %s, %n", args[0], args[1]);
             StringsConfig stringsConfig = new StringsConfig(args[0], args[1]);
-            Solver.PrintBFSSolution(stringsConfig);
+            //-b searches from both ends at once
+            if(args.length > 2 && args[2].equals("-b")) {
+                BidirectionalSolver.PrintBidirectionalSolution(stringsConfig);
+            }
+            else {
+                Solver.PrintBFSSolution(stringsConfig);
+            }
         }
     }
 }
@@ -1,28 +1,31 @@
 package puzzles.strings;
 
+import puzzles.common.solver.BidirectionalConfiguration;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Heuristic;
+import puzzles.common.solver.KeyedConfiguration;
 
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.function.Consumer;
 
-public class StringsConfig implements Configuration {
+public class StringsConfig implements KeyedConfiguration, BidirectionalConfiguration {
     //Variables for the range we want the string in (65-90 is uppercase A-Z)
     private final static int ASCII_START = 65;
     private final static int ASCII_END = 90;
 
-    //The ending word
-    private static String END_WORD;
+    //Each move shifts one letter by one, so the letters' distances around the alphabet add up to a lower bound
+    public static final Heuristic HEURISTIC = config -> ((StringsConfig) config).letterDistance();
+
+    //The ending word, shared by every config of the same puzzle
+    private final String endWord;
     //The current word
-    private String word;
-    //Constructor used once to create the starting clock config and sets the max and end hours
+    private final String word;
+    //Constructor used to create the starting config and every config after it, which keep the same end word
     public StringsConfig(String current, String end)
     {
         word = current;
-        END_WORD = end;
-    }
-    //Constructor used for creating neighbors
-    public StringsConfig(String current) {
-        word = current;
+        endWord = end;
     }
     /**
      * Creates a neighboring string by shifting a specified letter a specified amount of time
@@ -58,27 +61,91 @@ public class StringsConfig implements Configuration {
 
     @Override
     public boolean isSolution() {
-        return word.equals(END_WORD);
+        return word.equals(endWord);
+    }
+
+    /**
+     * Adds up how many shifts each letter is away from the end word's letter,
+     * going whichever way around the alphabet is shorter
+     * @return the total distance, 0 if the word is the end word
+     */
+    public int letterDistance()
+    {
+        int alphabet = ASCII_END - ASCII_START + 1;
+        int total = 0;
+        for(int i = 0; i < endWord.length() && i < word.length(); i++)
+        {
+            char from = word.charAt(i);
+            char to = endWord.charAt(i);
+            //Letters outside the range don't wrap, so they only count as one step
+            if(from < ASCII_START || from > ASCII_END || to < ASCII_START || to > ASCII_END) {
+                total += from == to ? 0 : 1;
+            }
+            else {
+                int distance = Math.abs(from - to);
+                total += Math.min(distance, alphabet - distance);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Finds the first letter that differs from the end word
+     * @return its position, 0 if the word is the end word
+     */
+    private int firstDifference()
+    {
+        for(int i = 0; i < endWord.length(); i++)
+        {
+            if(word.charAt(i) != endWord.charAt(i))
+            {
+                return i;
+            }
+        }
+        return 0;
     }
 
     @Override
     public Collection<Configuration> getNeighbors() {
         Collection<Configuration> neighbors = new LinkedList<>();
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    @Override
+    public void forEachNeighbor(Consumer<? super Configuration> action) {
         //Finds the first letter difference and then uses the overloaded constructor to make the neighbors
-        int diffLetter = 0;
-        for(int i = 0; i < END_WORD.length(); i++)
+        int diffLetter = firstDifference();
+        //generating neighbor ahead
+        action.accept(new StringsConfig(createNeighbor(diffLetter,1), endWord));
+        //generating neighbor behind
+        action.accept(new StringsConfig(createNeighbor(diffLetter,-1), endWord));
+    }
+
+    @Override
+    public StringsConfig getGoal() {
+        return new StringsConfig(endWord, endWord);
+    }
+
+    /**
+     * A word is a neighbor of the words that differ from it by one shift of their first
+     * letter that differs from the end word. Assumes the words are made of A-Z.
+     */
+    @Override
+    public Collection<Configuration> getPredecessors() {
+        Collection<Configuration> predecessors = new LinkedList<>();
+        for(int i = 0; i < word.length(); i++)
         {
-            if(word.charAt(i) != END_WORD.charAt(i))
+            //Shifting back the way the neighbor would have shifted forward
+            for(int posChange = -1; posChange <= 1; posChange += 2)
             {
-                diffLetter = i;
-                break;
+                StringsConfig before = new StringsConfig(createNeighbor(i, posChange), endWord);
+                if(before.firstDifference() == i && !predecessors.contains(before)) {
+                    predecessors.add(before);
+                }
             }
         }
-        //generating neighbor ahead
-        neighbors.add(new StringsConfig(createNeighbor(diffLetter,1)));
-        //generating neighbor behind
-        neighbors.add(new StringsConfig(createNeighbor(diffLetter,-1)));
-        return neighbors;
+        return predecessors;
     }
 
     @Override
@@ -90,6 +157,32 @@ public class StringsConfig implements Configuration {
         return false;
     }
 
+    //The key packs the word's chars 4 to a long
+    @Override
+    public int getKeyLength() {
+        return Math.max(1, (word.length() + 3) / 4);
+    }
+
+    @Override
+    public void writeKey(long[] dest, int offset) {
+        for(int i = 0; i < getKeyLength(); i++) {
+            dest[offset + i] = 0;
+        }
+        for(int i = 0; i < word.length(); i++) {
+            dest[offset + i / 4] |= (long) word.charAt(i) << (16 * (i % 4));
+        }
+    }
+
+    @Override
+    public StringsConfig fromKey(long[] src, int offset) {
+        //All words in a puzzle are as long as this one
+        char[] chars = new char[word.length()];
+        for(int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (src[offset + i / 4] >>> (16 * (i % 4)));
+        }
+        return new StringsConfig(new String(chars), endWord);
+    }
+
     @Override
     public int hashCode() {
         return word.hashCode();